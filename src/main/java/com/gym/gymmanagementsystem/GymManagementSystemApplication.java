@@ -2,8 +2,10 @@ package com.gym.gymmanagementsystem;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Drives the midnight rollover of the attendance presence index
 public class GymManagementSystemApplication {
 
 	public static void main(String[] args) {
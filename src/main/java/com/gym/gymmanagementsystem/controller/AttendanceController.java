@@ -1,16 +1,28 @@
 package com.gym.gymmanagementsystem.controller;
 
+import com.gym.gymmanagementsystem.dto.AttendanceBatchDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceBatchResponseDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceCalendarDTO;
 import com.gym.gymmanagementsystem.dto.AttendanceDTO;
 import com.gym.gymmanagementsystem.dto.AttendanceResponseDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceStreakDTO;
+import com.gym.gymmanagementsystem.dto.CheckoutAllResultDTO;
+import com.gym.gymmanagementsystem.dto.EligibilityCacheMetricsDTO;
 import com.gym.gymmanagementsystem.dto.ErrorResponseDTO; // NEW IMPORT
-import com.gym.gymmanagementsystem.model.Attendance;
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
+import com.gym.gymmanagementsystem.dto.WriteBehindMetricsDTO;
 import com.gym.gymmanagementsystem.service.AttendanceService;
 import com.gym.gymmanagementsystem.service.AttendanceSummaryService;
+import com.gym.gymmanagementsystem.service.AttendanceWriteBehindQueue;
+import com.gym.gymmanagementsystem.service.MemberEligibilityCache;
+import com.gym.gymmanagementsystem.service.OccupancyService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -33,6 +45,15 @@ public class AttendanceController {
     @Autowired
     private AttendanceSummaryService attendanceSummaryService;
 
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private AttendanceWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private MemberEligibilityCache eligibilityCache;
+
     @PostMapping("/record")
     public ResponseEntity<?> recordAttendance(@Valid @RequestBody AttendanceDTO attendanceDTO) { // CHANGED return type to ResponseEntity<?>
         try {
@@ -48,6 +69,28 @@ public class AttendanceController {
                                  .body(new ErrorResponseDTO(e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
         }
     }
+
+    @PostMapping("/record-batch")
+    public ResponseEntity<?> recordAttendanceBatch(@Valid @RequestBody AttendanceBatchDTO batchDTO) {
+        try {
+            AttendanceBatchResponseDTO response = attendanceService.recordAttendanceBatch(batchDTO.getTaps());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            // Individual tap failures are reported per tap; this is only reached if the batch write itself fails
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                 .body(new ErrorResponseDTO("Failed to record attendance batch: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value(), System.currentTimeMillis()));
+        }
+    }
+
+    @GetMapping("/write-behind/metrics")
+    public ResponseEntity<WriteBehindMetricsDTO> getWriteBehindMetrics() {
+        return ResponseEntity.ok(writeBehindQueue.getMetrics());
+    }
+
+    @GetMapping("/eligibility-cache/metrics")
+    public ResponseEntity<EligibilityCacheMetricsDTO> getEligibilityCacheMetrics() {
+        return ResponseEntity.ok(eligibilityCache.getMetrics());
+    }
     // ... rest of the controller remains the same ...
 
     // Re-check other endpoints that return `ResponseEntity<?>` or adjust them similarly for errors if needed.
@@ -66,15 +109,76 @@ public class AttendanceController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Attendance>> getAttendanceByUserId(@PathVariable String userId) {
+    public ResponseEntity<List<AttendanceResponseDTO>> getAttendanceByUserId(@PathVariable String userId) {
         try {
-            List<Attendance> attendanceRecords = attendanceService.getAttendanceByUserId(userId);
+            List<AttendanceResponseDTO> attendanceRecords = attendanceService.getAttendanceByUserId(userId);
             return ResponseEntity.ok(attendanceRecords);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Paginated, date-bounded history for one member; pass the returned nextCursor to get the next slice
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<?> getAttendanceHistory(
+            @PathVariable String userId,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "30") int size) {
+        try {
+            Integer userIdInt = Integer.parseInt(userId);
+            int pageSize = Math.max(1, Math.min(size, 200));
+            KeysetPageDTO<AttendanceResponseDTO> history = attendanceService.getAttendanceHistory(userIdInt, from, to, cursor, pageSize);
+            return ResponseEntity.ok(history);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(new ErrorResponseDTO("Invalid User ID format.", HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            HttpStatus status = e.getMessage() != null && e.getMessage().contains("not found") ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status)
+                                 .body(new ErrorResponseDTO(e.getMessage(), status.value(), System.currentTimeMillis()));
+        }
+    }
+
+    // Calendar, streaks and day counts are served from in-memory per-member bitsets, not from attendance rows
+    @GetMapping("/user/{userId}/calendar")
+    public ResponseEntity<AttendanceCalendarDTO> getAttendanceCalendar(
+            @PathVariable Integer userId,
+            @RequestParam(name = "year", required = false) Integer year) {
+        int calendarYear = year != null ? year : LocalDate.now().getYear();
+        return ResponseEntity.ok(attendanceService.getAttendanceCalendar(userId, calendarYear));
+    }
+
+    @GetMapping("/user/{userId}/streaks")
+    public ResponseEntity<AttendanceStreakDTO> getAttendanceStreaks(@PathVariable Integer userId) {
+        return ResponseEntity.ok(attendanceService.getAttendanceStreaks(userId));
+    }
+
+    @GetMapping("/user/{userId}/days-present")
+    public ResponseEntity<?> getDaysPresent(
+            @PathVariable Integer userId,
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to) {
+        try {
+            return ResponseEntity.ok(Map.of("userId", userId, "daysPresent", attendanceService.countDaysPresent(userId, from, to)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(new ErrorResponseDTO(e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+        }
+    }
+
+    @GetMapping("/occupancy")
+    public ResponseEntity<Map<String, Integer>> getOccupancy() {
+        return ResponseEntity.ok(Map.of("occupancy", occupancyService.getOccupancy()));
+    }
+
+    // Server-sent events: the current count on connect, then coalesced updates whenever it changes
+    @GetMapping(value = "/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOccupancy() {
+        return occupancyService.subscribe();
+    }
+
     @GetMapping("/daily-counts")
     public ResponseEntity<Map<LocalDate, Long>> getDailyAttendanceCounts(
             @RequestParam(name = "startDate") LocalDate startDate,
@@ -83,10 +187,21 @@ public class AttendanceController {
         return ResponseEntity.ok(dailyCounts);
     }
 
+    // Offset pages by default; pass 'cursor' (empty for the first slice) to page by seek instead, without a total count
     @GetMapping("/all")
-    public ResponseEntity<Page<AttendanceResponseDTO>> getAllAttendance(
+    public ResponseEntity<?> getAllAttendance(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            try {
+                KeysetPageDTO<AttendanceResponseDTO> slice = attendanceService.getAttendanceSlice(true, cursor, Math.max(1, Math.min(size, 200)));
+                return ResponseEntity.ok(slice);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                     .body(new ErrorResponseDTO(e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+            }
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("checkInTime").descending());
         Page<AttendanceResponseDTO> attendancePage = attendanceService.getAllAttendanceRecords(pageable);
         return ResponseEntity.ok(attendancePage);
@@ -103,8 +218,13 @@ public class AttendanceController {
     }
 
     @PostMapping("/generate-summaries")
-    public ResponseEntity<String> generateSummaries() {
+    public ResponseEntity<String> generateSummaries(@RequestParam(name = "full", defaultValue = "false") boolean full) {
         try {
+            if (full) {
+                // Repair path: regroup everything and mark every completed session as summarized
+                attendanceSummaryService.rebuildAllAttendanceSummaries();
+                return ResponseEntity.ok("All attendance summaries rebuilt successfully!");
+            }
             if (!attendanceSummaryService.hasPendingAttendanceRecordsForSummary()) {
                 return ResponseEntity.ok("No new or modified completed attendance records found to generate summaries.");
             }
@@ -119,23 +239,29 @@ public class AttendanceController {
     }
 
     @PostMapping("/checkout-all")
-    public ResponseEntity<String> checkOutAll() {
+    public ResponseEntity<?> checkOutAll() {
         try {
-            int checkedOutCount = attendanceService.checkOutAllUsers();
+            CheckoutAllResultDTO result = attendanceService.checkOutAllUsers();
+            int checkedOutCount = result.getCheckedOutCount();
+            long skippedCount = result.getSkippedByReason().values().stream().mapToLong(Long::longValue).sum();
             String message = checkedOutCount > 0
                              ? String.format("Successfully checked out %d active users.", checkedOutCount)
                              : "No users found checked in today.";
+            if (skippedCount > 0) {
+                message += String.format(" Skipped %d users still checked in.", skippedCount);
+            }
 
             if(checkedOutCount > 0) {
                 attendanceSummaryService.generateAttendanceSummaries();
                 message += " Summaries updated.";
             }
 
-            return ResponseEntity.ok(message);
+            result.setMessage(message);
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
             System.err.println("Error checking out all users: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                  .body("Failed to check out all users: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
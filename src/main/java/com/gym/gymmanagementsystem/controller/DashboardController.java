@@ -1,16 +1,24 @@
 package com.gym.gymmanagementsystem.controller;
 
-import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.service.CohortRetentionService;
 import com.gym.gymmanagementsystem.service.DashboardService;
+import com.gym.gymmanagementsystem.service.OccupancyHeatmapService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
 import com.gym.gymmanagementsystem.dto.ExpiringMembershipDTO; // New import
+import com.gym.gymmanagementsystem.dto.CohortRetentionDTO;
+import com.gym.gymmanagementsystem.dto.ErrorResponseDTO;
+import com.gym.gymmanagementsystem.dto.OccupancyHeatmapDTO;
+import com.gym.gymmanagementsystem.dto.UserResponseDTO;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -20,6 +28,12 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private OccupancyHeatmapService occupancyHeatmapService;
+
+    @Autowired
+    private CohortRetentionService cohortRetentionService;
+
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Long>> getDashboardSummary() {
         long totalActiveMembers = dashboardService.getTotalActiveMembers();
@@ -53,16 +67,41 @@ public class DashboardController {
         return ResponseEntity.ok(dailyData);
     }
 
+    @GetMapping("/occupancy-heatmap")
+    public ResponseEntity<OccupancyHeatmapDTO> getOccupancyHeatmap(
+            @RequestParam(name = "startDate") LocalDate startDate,
+            @RequestParam(name = "endDate") LocalDate endDate) {
+        return ResponseEntity.ok(occupancyHeatmapService.getHeatmap(startDate, endDate));
+    }
+
+    // Cohorts are joining months ("2025-01"); months is how many months after joining to follow each cohort
+    @GetMapping("/cohort-retention")
+    public ResponseEntity<?> getCohortRetention(
+            @RequestParam(name = "fromMonth") String fromMonth,
+            @RequestParam(name = "toMonth") String toMonth,
+            @RequestParam(name = "months", defaultValue = "12") int months) {
+        try {
+            CohortRetentionDTO retention = cohortRetentionService.getRetention(
+                    YearMonth.parse(fromMonth), YearMonth.parse(toMonth), Math.max(0, Math.min(months, 60)));
+            return ResponseEntity.ok(retention);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(new ErrorResponseDTO("Months must be in yyyy-MM format.", HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(new ErrorResponseDTO(e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+        }
+    }
+
     @GetMapping("/users/search")
-    public ResponseEntity<List<User>> searchUsers(@RequestParam String query) {
-        // This search will now fetch Users without planAssignments directly
-        List<User> users = dashboardService.searchUsers(query);
+    public ResponseEntity<List<UserResponseDTO>> searchUsers(@RequestParam String query) {
+        List<UserResponseDTO> users = dashboardService.searchUsers(query);
         return ResponseEntity.ok(users);
     }
 
     @GetMapping("/users/filter-status")
-    public ResponseEntity<List<User>> filterUsersByStatus(@RequestParam String status) {
-        List<User> users = dashboardService.filterUsersByStatus(status);
+    public ResponseEntity<List<UserResponseDTO>> filterUsersByStatus(@RequestParam String status) {
+        List<UserResponseDTO> users = dashboardService.filterUsersByStatus(status);
         return ResponseEntity.ok(users);
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.gym.gymmanagementsystem.controller;
+
+import com.gym.gymmanagementsystem.dto.ErrorResponseDTO;
+import com.gym.gymmanagementsystem.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"})
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/attendance")
+    public ResponseEntity<?> exportAttendance(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to,
+            @RequestParam(name = "userId", required = false) Integer userId,
+            @RequestParam(name = "format", defaultValue = "csv") String format) {
+        ResponseEntity<?> invalid = validate(from, to, format);
+        if (invalid != null) {
+            return invalid;
+        }
+        StreamingResponseBody body = out -> exportService.exportAttendance(from, to, userId, format, out);
+        return streamingResponse("attendance_" + from + "_" + to, format, body);
+    }
+
+    @GetMapping("/payments")
+    public ResponseEntity<?> exportPayments(
+            @RequestParam(name = "from") LocalDate from,
+            @RequestParam(name = "to") LocalDate to,
+            @RequestParam(name = "userId", required = false) Integer userId,
+            @RequestParam(name = "format", defaultValue = "csv") String format) {
+        ResponseEntity<?> invalid = validate(from, to, format);
+        if (invalid != null) {
+            return invalid;
+        }
+        StreamingResponseBody body = out -> exportService.exportPayments(from, to, userId, format, out);
+        return streamingResponse("payments_" + from + "_" + to, format, body);
+    }
+
+    private ResponseEntity<?> validate(LocalDate from, LocalDate to, String format) {
+        String error = null;
+        if (!ExportService.isSupportedFormat(format)) {
+            error = "Unsupported export format: " + format + ". Use 'csv' or 'ndjson'.";
+        } else if (from.isAfter(to)) {
+            error = "'from' must not be after 'to'.";
+        }
+        return error == null ? null : ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponseDTO(error, HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamingResponse(String fileName, String format, StreamingResponseBody body) {
+        boolean csv = ExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + (csv ? ".csv" : ".ndjson") + "\"")
+                .body(body);
+    }
+}
@@ -1,6 +1,7 @@
 package com.gym.gymmanagementsystem.controller;
 
 import com.gym.gymmanagementsystem.dto.ErrorResponseDTO;
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
 import com.gym.gymmanagementsystem.dto.PaymentDTO;
 import com.gym.gymmanagementsystem.dto.PaymentResponseDTO;
 import com.gym.gymmanagementsystem.service.PaymentService;
@@ -37,13 +38,28 @@ public class PaymentController {
         }
     }
 
+    // Offset pages by default; pass 'cursor' (empty for the first slice) to page by seek instead, without a total count
     @GetMapping
-    public ResponseEntity<Page<PaymentResponseDTO>> getAllPayments(
+    public ResponseEntity<?> getAllPayments(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "paymentDate,desc") String[] sort) {
+            @RequestParam(defaultValue = "paymentDate,desc") String[] sort,
+            @RequestParam(required = false) String cursor) {
 
         Sort.Direction direction = sort[1].equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (cursor != null) {
+            if (!"paymentDate".equals(sort[0])) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                     .body(new ErrorResponseDTO("Cursor pagination only supports sorting by paymentDate.", HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+            }
+            try {
+                KeysetPageDTO<PaymentResponseDTO> slice = paymentService.getPaymentSlice(direction.isAscending(), cursor, Math.max(1, Math.min(size, 200)));
+                return ResponseEntity.ok(slice);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                     .body(new ErrorResponseDTO(e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+            }
+        }
         Sort sortBy = Sort.by(direction, sort[0]);
         Pageable pageable = PageRequest.of(page, size, sortBy);
         Page<PaymentResponseDTO> paymentsPage = paymentService.getAllPayments(pageable);
@@ -1,8 +1,14 @@
 package com.gym.gymmanagementsystem.controller;
 
+import com.gym.gymmanagementsystem.dto.ErrorResponseDTO;
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
+import com.gym.gymmanagementsystem.dto.MemberImportResultDTO;
+import com.gym.gymmanagementsystem.dto.MemberSuggestionDTO;
 import com.gym.gymmanagementsystem.dto.UserDTO;
 import com.gym.gymmanagementsystem.dto.UserResponseDTO;
 import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.service.MemberImportService;
+import com.gym.gymmanagementsystem.service.MembershipStatusService;
 import com.gym.gymmanagementsystem.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +20,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -23,24 +33,69 @@ public class UserController {
 
     @Autowired
     private UserService userService;
+    @Autowired
+    private MemberImportService memberImportService;
+    @Autowired
+    private MembershipStatusService membershipStatusService;
 
     @PostMapping
-    public ResponseEntity<User> addUser(@Valid @RequestBody UserDTO userDTO) {
+    public ResponseEntity<UserResponseDTO> addUser(@Valid @RequestBody UserDTO userDTO) {
         try {
             User savedUser = userService.addUser(userDTO);
-            return new ResponseEntity<>(savedUser, HttpStatus.CREATED);
+            return new ResponseEntity<>(userService.toResponse(savedUser), HttpStatus.CREATED);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
     }
 
+    // Bulk import. The file is the raw request body, read as it arrives; send it as text/csv or application/x-ndjson
+    // (not as a form), e.g. curl --data-binary @members.csv -H 'Content-Type: text/csv' .../api/users/import?format=csv
+    @PostMapping("/import")
+    public ResponseEntity<?> importUsers(
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            InputStream body) {
+        if (!MemberImportService.isSupportedFormat(format)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(new ErrorResponseDTO("Unsupported import format: " + format + ". Use 'csv' or 'ndjson'.", HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+        }
+        try {
+            MemberImportResultDTO result = memberImportService.importMembers(body, format);
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(new ErrorResponseDTO("Could not read the upload: " + e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+        }
+    }
+
+    // Recomputes every member's stored status from their plan dates now, instead of waiting for the nightly job
+    @PostMapping("/status/recompute")
+    public ResponseEntity<Map<String, Integer>> recomputeStatuses() {
+        int changed = membershipStatusService.recomputeAll();
+        return ResponseEntity.ok(Map.of("changedCount", changed));
+    }
+
+    // Offset pages by default; pass 'cursor' (empty for the first slice) to page by seek instead, without a total count
     @GetMapping
-    public ResponseEntity<Page<UserResponseDTO>> getAllUsers(
+    public ResponseEntity<?> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "joiningDate,asc") String[] sort) { // Default sort: joiningDate asc
+            @RequestParam(defaultValue = "joiningDate,asc") String[] sort, // Default sort: joiningDate asc
+            @RequestParam(required = false) String cursor) {
 
         Sort.Direction direction = sort[1].equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (cursor != null) {
+            if (!"joiningDate".equals(sort[0])) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                     .body(new ErrorResponseDTO("Cursor pagination only supports sorting by joiningDate.", HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+            }
+            try {
+                KeysetPageDTO<UserResponseDTO> slice = userService.getUserSlice(direction.isAscending(), cursor, Math.max(1, Math.min(size, 200)));
+                return ResponseEntity.ok(slice);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                     .body(new ErrorResponseDTO(e.getMessage(), HttpStatus.BAD_REQUEST.value(), System.currentTimeMillis()));
+            }
+        }
         Sort sortBy = Sort.by(direction, sort[0]);
         
         Pageable pageable = PageRequest.of(page, size, sortBy);
@@ -60,25 +115,33 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable("id") String userId, @Valid @RequestBody UserDTO userDTO) {
+    public ResponseEntity<UserResponseDTO> updateUser(@PathVariable("id") String userId, @Valid @RequestBody UserDTO userDTO) {
         try {
             User updatedUser = userService.updateUser(Integer.parseInt(userId), userDTO);
-            return ResponseEntity.ok(updatedUser);
+            return ResponseEntity.ok(userService.toResponse(updatedUser));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable("id") String userId) {
+    public ResponseEntity<Void> deleteUser(@PathVariable("id") String userId,
+                                           @RequestParam(defaultValue = "false") boolean soft) { // soft=true keeps the history
         try {
-            userService.deleteUser(Integer.parseInt(userId));
+            userService.deleteUser(Integer.parseInt(userId), soft);
             return ResponseEntity.noContent().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MemberSuggestionDTO>> suggestUsers(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userService.suggestUsers(query, Math.max(1, Math.min(limit, 50))));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Page<UserResponseDTO>> searchUsers(
             @RequestParam String query,
@@ -0,0 +1,13 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+public class AttendanceBatchDTO {
+    // Taps are resolved in the order given, exactly as if they had arrived one by one
+    @NotEmpty(message = "At least one tap is required")
+    private List<@Valid AttendanceTapDTO> taps;
+}
@@ -0,0 +1,13 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class AttendanceBatchResponseDTO {
+    private List<AttendanceTapResultDTO> results;
+    private int acceptedCount;
+    private int rejectedCount;
+    private long elapsedMillis; // Server-side processing time, for comparing against single-tap ingestion
+    private double tapsPerSecond;
+}
@@ -0,0 +1,13 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class AttendanceCalendarDTO {
+    private Integer userId;
+    private int year;
+    private int daysPresent;
+    private List<LocalDate> datesPresent; // Ascending
+}
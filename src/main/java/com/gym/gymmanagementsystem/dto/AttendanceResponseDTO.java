@@ -1,6 +1,7 @@
 package com.gym.gymmanagementsystem.dto;
 
 import lombok.Data;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -11,4 +12,8 @@ public class AttendanceResponseDTO {
     private LocalDateTime checkInTime;
     private LocalDateTime checkOutTime;
     private Long timeSpentMinutes; // NEW FIELD
+    private LocalDate attendanceDate;
+    // Only for taps journaled while the database is unavailable: JOURNALED (eligible when last seen) or
+    // UNVERIFIED (member not in the eligibility cache); check-in vs check-out is decided on replay
+    private String journalStatus;
 }
\ No newline at end of file
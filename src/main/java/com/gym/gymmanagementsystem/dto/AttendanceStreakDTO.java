@@ -0,0 +1,10 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+
+@Data
+public class AttendanceStreakDTO {
+    private Integer userId;
+    private int currentStreak; // Consecutive days up to today (or yesterday, if not in yet today)
+    private int longestStreak; // Over the years the calendar holds
+}
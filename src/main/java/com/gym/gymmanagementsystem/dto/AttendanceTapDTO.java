@@ -0,0 +1,14 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+public class AttendanceTapDTO {
+    @NotNull(message = "User ID is required for each tap")
+    private Integer userId;
+
+    @NotNull(message = "Timestamp is required for each tap")
+    private LocalDateTime timestamp; // When the turnstile registered the tap
+}
@@ -0,0 +1,14 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class AttendanceTapResultDTO {
+    private int index; // Position of the tap in the submitted batch
+    private Integer userId;
+    private LocalDateTime timestamp;
+    private String action; // "CHECK_IN", "CHECK_OUT", "ALREADY_RECORDED" (a repeated tap), "ARCHIVED" (the day was rolled over) or "REJECTED"
+    private String message; // Reason when the tap was rejected or archived
+    private AttendanceResponseDTO attendance; // Resulting attendance state when the tap was accepted
+}
@@ -0,0 +1,11 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.util.Map;
+
+@Data
+public class CheckoutAllResultDTO {
+    private int checkedOutCount;
+    private Map<String, Long> skippedByReason; // e.g. "membershipNotActive" -> 2, "minimumStayNotReached" -> 5
+    private String message;
+}
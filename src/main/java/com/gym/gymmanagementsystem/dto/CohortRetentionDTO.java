@@ -0,0 +1,10 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class CohortRetentionDTO {
+    private int months; // Months followed after the joining month
+    private List<CohortRetentionRowDTO> cohorts;
+}
@@ -0,0 +1,11 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+
+@Data
+public class CohortRetentionRowDTO {
+    private String cohortMonth; // Joining month, e.g. "2025-01"
+    private int cohortSize;
+    private int[] retainedCounts; // Index N = members of the cohort who visited N months after joining
+    private double[] retentionRates; // retainedCounts / cohortSize
+}
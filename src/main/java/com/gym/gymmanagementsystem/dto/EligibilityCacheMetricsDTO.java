@@ -0,0 +1,14 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+
+@Data
+public class EligibilityCacheMetricsDTO {
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private double hitRate; // hits / (hits + misses), 0 before the first lookup
+}
@@ -0,0 +1,29 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// One slice of a seek-paginated listing. There is deliberately no total count:
+// pass nextCursor back as 'cursor' to fetch the following slice while hasNext is true.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDTO<T> {
+    private List<T> content;
+    private String nextCursor; // Opaque continuation token, null on the last slice
+    private boolean hasNext;
+
+    /**
+     * Builds a slice from up to size + 1 rows read past the previous cursor: the extra row only tells
+     * whether another slice follows, and the cursor is taken from the last row that is returned.
+     */
+    public static <T> KeysetPageDTO<T> fromRows(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = new ArrayList<>(hasNext ? rows.subList(0, size) : rows);
+        return new KeysetPageDTO<>(content, hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null, hasNext);
+    }
+}
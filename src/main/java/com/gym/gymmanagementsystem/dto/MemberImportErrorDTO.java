@@ -0,0 +1,14 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberImportErrorDTO {
+    private long lineNumber; // Line of the upload the row starts on, header included
+    private Integer userId; // The row's own userId, if it had one
+    private String message;
+}
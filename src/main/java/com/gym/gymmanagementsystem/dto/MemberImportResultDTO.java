@@ -0,0 +1,15 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class MemberImportResultDTO {
+    private int totalRows;
+    private int importedCount;
+    private int failedCount;
+    private List<MemberImportErrorDTO> errors; // One per rejected row, in file order, up to the configured limit
+    private boolean errorsTruncated; // More rows failed than are listed in 'errors'
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,10 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberSuggestionDTO {
+    private Integer userId;
+    private String name;
+    private String contactNumber;
+}
@@ -0,0 +1,15 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+@Data
+public class OccupancyHeatmapDTO {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    // Rows are days of the week, Monday first. Each cell is the number of sessions present
+    // during that slot, summed over every matching day in the range.
+    private int[][] hourly;          // 7 x 24
+    private int[][] quarterHourly;   // 7 x 96
+    private int[] daysCounted;       // How many Mondays, Tuesdays, ... the range covers, for averaging
+}
@@ -1,9 +1,11 @@
 package com.gym.gymmanagementsystem.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
 public class UserResponseDTO {
     private Integer userId;
     private String name;
@@ -19,4 +21,23 @@ public class UserResponseDTO {
     private LocalDate currentPlanStartDate;
     private LocalDate currentPlanEndDate; // This is the calculated expiry date
     private boolean currentPlanIsActive; // This determines green/red status for the plan pill
-}
\ No newline at end of file
+
+    // Used by the constructor expressions in UserRepository; argument order follows the SELECT list there
+    public UserResponseDTO(Integer userId, String name, Integer age, String gender, String contactNumber,
+                           LocalDate joiningDate, String membershipStatus, Boolean currentPlanIsActive,
+                           Integer currentPlanId, String currentPlanName,
+                           LocalDate currentPlanStartDate, LocalDate currentPlanEndDate) {
+        this.userId = userId;
+        this.name = name;
+        this.age = age;
+        this.gender = gender;
+        this.contactNumber = contactNumber;
+        this.joiningDate = joiningDate;
+        this.membershipStatus = membershipStatus;
+        this.currentPlanIsActive = Boolean.TRUE.equals(currentPlanIsActive);
+        this.currentPlanId = currentPlanId;
+        this.currentPlanName = currentPlanName;
+        this.currentPlanStartDate = currentPlanStartDate;
+        this.currentPlanEndDate = currentPlanEndDate;
+    }
+}
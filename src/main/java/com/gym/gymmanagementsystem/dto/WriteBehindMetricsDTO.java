@@ -0,0 +1,20 @@
+package com.gym.gymmanagementsystem.dto;
+
+import lombok.Data;
+
+@Data
+public class WriteBehindMetricsDTO {
+    private boolean enabled;
+    private int queueDepth;
+    private int capacity;
+    private long enqueuedCount;
+    private long rejectedCount;      // Taps turned away because the queue stayed full
+    private long flushedCount;
+    private long failedFlushCount;   // Flush attempts that failed and were retried
+    private long journaledCount;     // Taps handed to the journal after their retries ran out
+    private long droppedCount;       // Taps that could be neither written nor journaled
+    private int lastBatchSize;
+    private double lastFlushMillis;
+    private double averageFlushMillis;
+    private double maxFlushMillis;
+}
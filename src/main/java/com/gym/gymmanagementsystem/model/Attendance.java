@@ -1,14 +1,28 @@
 package com.gym.gymmanagementsystem.model;
 
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import java.time.LocalDate; // NEW IMPORT: for attendanceDate
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "attendance") // REVERTED: Now points to the *temporary* 'attendance' table
-@Data
+@Table(name = "attendance", uniqueConstraints = {
+    // At most one session per member per day, whatever path or instance writes it
+    @UniqueConstraint(name = "uk_attendance_user_date", columnNames = {"user_id", "attendance_date"})
+}, indexes = { // REVERTED: Now points to the *temporary* 'attendance' table
+    // Covers date-range aggregates (daily counts) without touching the table rows
+    @Index(name = "idx_attendance_date_user", columnList = "attendance_date, user_id"),
+    // Lets the summary job find completed sessions it has not summarized yet
+    @Index(name = "idx_attendance_summarized_at", columnList = "summarized_at"),
+    // Keyset slices of the attendance list seek on (check_in_time, user_id)
+    @Index(name = "idx_attendance_check_in_user", columnList = "check_in_time, user_id")
+})
+@Getter
+@Setter
+@ToString
 @NamedEntityGraph(
     name = "Attendance.withUser",
     attributeNodes = {
@@ -22,7 +36,8 @@ public class Attendance {
     @Column(name = "attendance_id")
     private Integer attendanceId;
 
-    @JsonBackReference
+    @JsonIgnore
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -38,4 +53,25 @@ public class Attendance {
 
     @Column(name = "attendance_date", nullable = false) // NEW/CONFIRMED: Maps to the new 'attendance_date' in the temporary table
     private LocalDate attendanceDate; // Field name
-}
\ No newline at end of file
+
+    // Stamped by AttendanceSummaryService when it takes a completed session in; NULL until then
+    @Column(name = "summarized_at")
+    private LocalDateTime summarizedAt;
+
+    // By attendance ID only, never the lazy 'user'; the ID is generated on insert, hence the class-wide hash
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Attendance that)) {
+            return false;
+        }
+        return attendanceId != null && attendanceId.equals(that.getAttendanceId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Attendance.class.hashCode();
+    }
+}
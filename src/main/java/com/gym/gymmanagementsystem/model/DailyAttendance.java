@@ -0,0 +1,50 @@
+package com.gym.gymmanagementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Persistent, one-row-per-member-per-day copy of completed sessions from the temporary 'attendance' table.
+// Rows are written by AttendanceSummaryService with native SQL; this mapping exists so reads can use JPA
+// and so Hibernate maintains the table's indexes.
+@Entity
+@Table(name = "daily_attendance", indexes = {
+    @Index(name = "idx_daily_attendance_date_user", columnList = "attendance_date, user_id"),
+    // Keyset slices of the attendance list seek on (check_in, user_id)
+    @Index(name = "idx_daily_attendance_check_in_user", columnList = "check_in, user_id")
+})
+@IdClass(DailyAttendance.DailyAttendanceId.class)
+@Data
+public class DailyAttendance {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Id
+    @Column(name = "attendance_date")
+    private LocalDate attendanceDate;
+
+    @Column(name = "check_in")
+    private LocalDateTime checkIn;
+
+    @Column(name = "check_out")
+    private LocalDateTime checkOut;
+
+    @Column(name = "time_spent_minutes")
+    private Long timeSpentMinutes;
+
+    // (user_id, attendance_date) is the table's natural key
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyAttendanceId implements Serializable {
+        private Integer userId;
+        private LocalDate attendanceDate;
+    }
+}
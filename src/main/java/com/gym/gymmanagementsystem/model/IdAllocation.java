@@ -0,0 +1,20 @@
+package com.gym.gymmanagementsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Where the next scan for free IDs starts, per ID space (e.g. member IDs). Instances lock this row
+// while reserving a block, so no two of them ever hand out the same ID.
+// Read and written by MemberIdAllocator with plain SQL; mapped here so Hibernate creates the table.
+@Entity
+@Table(name = "id_allocation")
+@Data
+public class IdAllocation {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Integer nextValue;
+}
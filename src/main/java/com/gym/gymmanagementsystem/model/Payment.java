@@ -1,12 +1,20 @@
 package com.gym.gymmanagementsystem.model;
 
 import jakarta.persistence.*;
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "payments")
-@Data
+@Table(name = "payments", indexes = {
+    // Keyset slices of the payment list seek on (payment_date, payment_id)
+    @Index(name = "idx_payments_date_id", columnList = "payment_date, payment_id")
+})
+@Getter
+@Setter
+@ToString
 public class Payment {
 
     @Id
@@ -14,6 +22,8 @@ public class Payment {
     @Column(name = "payment_id")
     private Integer paymentId;
 
+    @JsonIgnore
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -40,4 +50,21 @@ public class Payment {
     private String transactionId;
 
     private String notes;
-}
\ No newline at end of file
+
+    // Same identity rule as Attendance: the generated ID, not the member association
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Payment that)) {
+            return false;
+        }
+        return paymentId != null && paymentId.equals(that.getPaymentId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Payment.class.hashCode();
+    }
+}
@@ -1,13 +1,22 @@
 package com.gym.gymmanagementsystem.model;
 
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.time.LocalDate;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
-@Data
+@Table(name = "users", indexes = {
+    // Status filters and counts; also lets the nightly job find Active members whose plan has ended
+    @Index(name = "idx_users_status_plan_end", columnList = "membership_status, current_plan_end_date"),
+    // Keyset slices of the member list seek on (joining_date, user_id)
+    @Index(name = "idx_users_joining_date_user", columnList = "joining_date, user_id")
+})
+@Getter
+@Setter
+@ToString
 public class User {
 
     @Id
@@ -39,8 +48,25 @@ public class User {
     @Column(name = "current_plan_end_date")
     private LocalDate currentPlanEndDate;
 
-    @JsonManagedReference
-    // MODIFIED: 'mappedBy' refers to the 'user' field in the Attendance entity (which now maps to the 'attendance' table)
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private java.util.List<Attendance> attendanceRecords;
-}
\ No newline at end of file
+    // Set when the member was soft-deleted: the row and its history stay, but listings, search and check-in skip it
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // Identity is the user ID alone, so members can go in sets and be compared without loading anything.
+    // The hash is per class rather than per ID, so it does not change when a new entity is saved.
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof User that)) {
+            return false;
+        }
+        return userId != null && userId.equals(that.getUserId());
+    }
+
+    @Override
+    public int hashCode() {
+        return User.class.hashCode();
+    }
+}
@@ -0,0 +1,220 @@
+package com.gym.gymmanagementsystem.repository;
+
+import com.gym.gymmanagementsystem.dto.AttendanceResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read access to a member's complete attendance history, which is split between the hot
+ * 'attendance' table (recent days) and the persistent 'daily_attendance' archive.
+ * Archived rows are returned with a null attendanceId. A member/day that is present in both
+ * tables (completed but not yet rolled over) is returned once, from 'attendance'.
+ */
+@Repository
+public class AttendanceHistoryRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Both tables projected to the same columns; archived rows are skipped while their hot copy still exists
+    private static final String HISTORY_UNION = """
+            SELECT a.attendance_id, a.user_id, a.check_in_time, a.check_out_time,
+                   a.time_spent_minutes, a.attendance_date
+            FROM attendance a
+            WHERE %1$s
+            UNION ALL
+            SELECT NULL, da.user_id, da.check_in, da.check_out,
+                   da.time_spent_minutes, da.attendance_date
+            FROM daily_attendance da
+            WHERE %2$s
+              AND NOT EXISTS (
+                  SELECT 1 FROM attendance hot
+                  WHERE hot.user_id = da.user_id AND hot.attendance_date = da.attendance_date
+              )
+            """;
+
+    // HISTORY_UNION for slices: each side is ordered and limited on its own (check-in, user_id) index
+    private static final String SLICE_UNION = """
+            (SELECT a.attendance_id, a.user_id, a.check_in_time, a.check_out_time,
+                    a.time_spent_minutes, a.attendance_date
+             FROM attendance a
+             WHERE %1$s
+             ORDER BY a.check_in_time %3$s, a.user_id %3$s LIMIT ?)
+            UNION ALL
+            (SELECT NULL, da.user_id, da.check_in, da.check_out,
+                    da.time_spent_minutes, da.attendance_date
+             FROM daily_attendance da
+             WHERE %2$s
+               AND NOT EXISTS (
+                   SELECT 1 FROM attendance hot
+                   WHERE hot.user_id = da.user_id AND hot.attendance_date = da.attendance_date
+               )
+             ORDER BY da.check_in %3$s, da.user_id %3$s LIMIT ?)
+            """;
+
+    private static final RowMapper<AttendanceResponseDTO> ROW_MAPPER = (rs, rowNum) -> {
+        AttendanceResponseDTO dto = new AttendanceResponseDTO();
+        dto.setAttendanceId(rs.getObject("attendance_id", Integer.class));
+        dto.setUserId(rs.getInt("user_id"));
+        dto.setUserName(rs.getString("name") != null ? rs.getString("name") : "N/A");
+        Timestamp checkIn = rs.getTimestamp("check_in_time");
+        Timestamp checkOut = rs.getTimestamp("check_out_time");
+        dto.setCheckInTime(checkIn != null ? checkIn.toLocalDateTime() : null);
+        dto.setCheckOutTime(checkOut != null ? checkOut.toLocalDateTime() : null);
+        dto.setTimeSpentMinutes(rs.getObject("time_spent_minutes", Long.class));
+        dto.setAttendanceDate(rs.getObject("attendance_date", LocalDate.class));
+        return dto;
+    };
+
+    /**
+     * Every attendance day of one member, oldest first.
+     */
+    public List<AttendanceResponseDTO> findByUserId(Integer userId) {
+        String sql = "SELECT h.*, u.name FROM (" +
+                     String.format(HISTORY_UNION, "a.user_id = ?", "da.user_id = ?") +
+                     ") h LEFT JOIN users u ON u.user_id = h.user_id " +
+                     "ORDER BY h.attendance_date, h.check_in_time";
+        return jdbcTemplate.query(sql, ROW_MAPPER, userId, userId);
+    }
+
+    /**
+     * One page of all members' attendance across both tables, ordered by check-in time.
+     */
+    public List<AttendanceResponseDTO> findPage(boolean newestFirst, long offset, int limit) {
+        String sql = "SELECT h.*, u.name FROM (" +
+                     String.format(HISTORY_UNION, "1 = 1", "1 = 1") +
+                     ") h LEFT JOIN users u ON u.user_id = h.user_id " +
+                     "ORDER BY h.check_in_time " + (newestFirst ? "DESC" : "ASC") + " LIMIT ? OFFSET ?";
+        return jdbcTemplate.query(sql, ROW_MAPPER, limit, offset);
+    }
+
+    /**
+     * Seek-paginated slice of all members' attendance across both tables, ordered by (check-in time,
+     * user ID); a member has at most one session per check-in instant, so the pair is unique. When
+     * afterCheckIn is given only rows past that position are returned. Each side of the union seeks
+     * and limits on its own (check-in, user_id) index, so a slice reads at most twice its size
+     * however far into the history it is, instead of everything past the cursor.
+     */
+    public List<AttendanceResponseDTO> findSlice(boolean newestFirst, LocalDateTime afterCheckIn, Integer afterUserId, int limit) {
+        String direction = newestFirst ? "DESC" : "ASC";
+        List<Object> seekArgs = new ArrayList<>();
+        String hotCondition = "1 = 1";
+        String archiveCondition = "1 = 1";
+        if (afterCheckIn != null) {
+            // (check_in, user_id) past the cursor, with a bound on the leading column for MySQL's range access
+            String past = newestFirst ? "<" : ">";
+            String seek = "%1$s " + (newestFirst ? "<=" : ">=") + " ? AND (%1$s " + past + " ? OR %2$s " + past + " ?)";
+            hotCondition = String.format(seek, "a.check_in_time", "a.user_id");
+            archiveCondition = String.format(seek, "da.check_in", "da.user_id");
+            Timestamp after = Timestamp.valueOf(afterCheckIn);
+            seekArgs.addAll(List.of(after, after, afterUserId));
+        }
+        String sql = "SELECT h.*, u.name FROM (" +
+                     String.format(SLICE_UNION, hotCondition, archiveCondition, direction) +
+                     ") h LEFT JOIN users u ON u.user_id = h.user_id " +
+                     "ORDER BY h.check_in_time " + direction + ", h.user_id " + direction + " LIMIT ?";
+        List<Object> args = new ArrayList<>(seekArgs);
+        args.add(limit);
+        args.addAll(seekArgs);
+        args.add(limit);
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    public long count() {
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" +
+                String.format(HISTORY_UNION, "1 = 1", "1 = 1") + ") h", Long.class);
+        return total != null ? total : 0L;
+    }
+
+    /**
+     * Seek-paginated slice of one member's history within [from, to], newest first, ordered by
+     * (attendance_date, attendance_id) with archived rows treated as ID 0. When afterDate is given,
+     * only rows strictly after that position in the ordering are returned. Both sides of the union
+     * are bounded by user_id and the date range, so a slice costs the same for a new member and a
+     * ten-year one.
+     */
+    public List<AttendanceResponseDTO> findUserHistorySlice(Integer userId, LocalDate from, LocalDate to,
+                                                            LocalDate afterDate, Integer afterId, int limit) {
+        LocalDate upperBound = afterDate != null && afterDate.isBefore(to) ? afterDate : to;
+        String rangeCondition = "%s.user_id = ? AND %s.attendance_date BETWEEN ? AND ?";
+        StringBuilder sql = new StringBuilder("SELECT h.*, u.name FROM (")
+                .append(String.format(HISTORY_UNION,
+                        String.format(rangeCondition, "a", "a"),
+                        String.format(rangeCondition, "da", "da")))
+                .append(") h LEFT JOIN users u ON u.user_id = h.user_id ");
+        List<Object> args = new ArrayList<>(List.of(userId, from, upperBound, userId, from, upperBound));
+        if (afterDate != null) {
+            sql.append("WHERE h.attendance_date < ? OR (h.attendance_date = ? AND COALESCE(h.attendance_id, 0) < ?) ");
+            args.addAll(List.of(afterDate, afterDate, afterId));
+        }
+        sql.append("ORDER BY h.attendance_date DESC, COALESCE(h.attendance_id, 0) DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Streams every attendance day in [from, to] (optionally for one member) to the consumer, one row
+     * at a time, from a forward-only streaming result set. Nothing is collected in memory.
+     */
+    public void streamHistory(LocalDate from, LocalDate to, Integer userId, int fetchSize,
+                              Consumer<AttendanceResponseDTO> consumer) {
+        String rangeCondition = "%1$s.attendance_date BETWEEN ? AND ?" + (userId != null ? " AND %1$s.user_id = ?" : "");
+        String sql = "SELECT h.*, u.name FROM (" +
+                     String.format(HISTORY_UNION, String.format(rangeCondition, "a"), String.format(rangeCondition, "da")) +
+                     ") h LEFT JOIN users u ON u.user_id = h.user_id " +
+                     "ORDER BY h.attendance_date, h.user_id";
+        List<Object> sideArgs = userId != null ? List.of(from, to, userId) : List.of(from, to);
+        List<Object> args = new ArrayList<>(sideArgs);
+        args.addAll(sideArgs);
+
+        jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, sql, fetchSize, args.toArray()),
+                (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    public interface SessionIntervalHandler {
+        void accept(LocalDate attendanceDate, LocalDateTime checkInTime, LocalDateTime checkOutTime);
+    }
+
+    /**
+     * Streams the (check-in, check-out) interval of every session dated in [from, to] across both
+     * tables, without building row objects. checkOutTime is null for sessions never checked out.
+     */
+    public void streamSessionIntervals(LocalDate from, LocalDate to, int fetchSize, SessionIntervalHandler handler) {
+        String range = "%s.attendance_date BETWEEN ? AND ?";
+        String sql = "SELECT h.attendance_date, h.check_in_time, h.check_out_time FROM (" +
+                     String.format(HISTORY_UNION, String.format(range, "a"), String.format(range, "da")) + ") h";
+        jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, sql, fetchSize, from, to, from, to), (RowCallbackHandler) rs -> {
+            Timestamp checkIn = rs.getTimestamp("check_in_time");
+            Timestamp checkOut = rs.getTimestamp("check_out_time");
+            if (checkIn != null) {
+                handler.accept(rs.getObject("attendance_date", LocalDate.class), checkIn.toLocalDateTime(),
+                        checkOut != null ? checkOut.toLocalDateTime() : null);
+            }
+        });
+    }
+
+    public interface MemberDayHandler {
+        void accept(int userId, LocalDate attendanceDate);
+    }
+
+    /**
+     * Streams every (member, day) with a session on or after from, across both tables.
+     */
+    public void streamMemberDays(LocalDate from, int fetchSize, MemberDayHandler handler) {
+        String sql = "SELECT h.user_id, h.attendance_date FROM (" +
+                     String.format(HISTORY_UNION, "a.attendance_date >= ?", "da.attendance_date >= ?") + ") h";
+        jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, sql, fetchSize, from, from),
+                (RowCallbackHandler) rs -> handler.accept(rs.getInt("user_id"), rs.getObject("attendance_date", LocalDate.class)));
+    }
+}
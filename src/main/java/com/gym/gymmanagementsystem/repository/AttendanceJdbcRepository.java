@@ -0,0 +1,207 @@
+package com.gym.gymmanagementsystem.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC access to the 'attendance' table for write paths that handle many rows at once.
+ * Hibernate cannot batch inserts for IDENTITY keys, so these go through JdbcTemplate batches
+ * (combined with rewriteBatchedStatements on the MySQL URL this becomes one multi-row statement).
+ */
+@Repository
+public class AttendanceJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * A session to be written: either a new row (attendanceId == null) or a check-out of an existing one.
+     * Also used for sessions read back from 'daily_attendance', which have no attendance ID.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SessionWrite {
+        @Setter
+        private Integer attendanceId;
+        private final Integer userId;
+        private final LocalDate attendanceDate;
+        private final LocalDateTime checkInTime;
+        private final LocalDateTime checkOutTime;
+
+        public Long getTimeSpentMinutes() {
+            return checkOutTime != null ? Duration.between(checkInTime, checkOutTime).toMinutes() : null;
+        }
+    }
+
+    /**
+     * Inserts all sessions in one JDBC batch and writes the generated attendance IDs back onto them.
+     */
+    public void insertSessions(List<SessionWrite> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO attendance (user_id, check_in_time, check_out_time, time_spent_minutes, attendance_date) " +
+                     "VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        SessionWrite session = sessions.get(i);
+                        ps.setInt(1, session.getUserId());
+                        ps.setTimestamp(2, Timestamp.valueOf(session.getCheckInTime()));
+                        if (session.getCheckOutTime() != null) {
+                            ps.setTimestamp(3, Timestamp.valueOf(session.getCheckOutTime()));
+                            ps.setLong(4, session.getTimeSpentMinutes());
+                        } else {
+                            ps.setNull(3, Types.TIMESTAMP);
+                            ps.setNull(4, Types.BIGINT);
+                        }
+                        ps.setObject(5, session.getAttendanceDate());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return sessions.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < keys.size() && i < sessions.size(); i++) {
+            Object key = keys.get(i).values().iterator().next();
+            sessions.get(i).setAttendanceId(((Number) key).intValue());
+        }
+    }
+
+    /**
+     * Closes the given open sessions in one JDBC batch. Rows that were already checked out are left untouched.
+     * Sessions whose row ID is not known yet are closed by member and day instead.
+     */
+    public void closeSessions(List<SessionWrite> sessions) {
+        Map<Boolean, List<SessionWrite>> byIdKnown = sessions.stream()
+                .collect(Collectors.partitioningBy(session -> session.getAttendanceId() != null));
+        closeSessionsByMemberAndDate(byIdKnown.get(false));
+        List<SessionWrite> withIds = byIdKnown.get(true);
+        if (withIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE attendance SET check_out_time = ?, time_spent_minutes = ? " +
+                "WHERE attendance_id = ? AND check_out_time IS NULL",
+                withIds,
+                withIds.size(),
+                (ps, session) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(session.getCheckOutTime()));
+                    ps.setLong(2, session.getTimeSpentMinutes());
+                    ps.setInt(3, session.getAttendanceId());
+                });
+    }
+
+    /**
+     * Closes each member's open session for the given day, for writers that do not know the row ID
+     * (the unique key on (user_id, attendance_date) makes the pair identify the row).
+     */
+    public void closeSessionsByMemberAndDate(List<SessionWrite> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE attendance SET check_out_time = ?, time_spent_minutes = ? " +
+                "WHERE user_id = ? AND attendance_date = ? AND check_out_time IS NULL",
+                sessions,
+                sessions.size(),
+                (ps, session) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(session.getCheckOutTime()));
+                    ps.setLong(2, session.getTimeSpentMinutes());
+                    ps.setInt(3, session.getUserId());
+                    ps.setObject(4, session.getAttendanceDate());
+                });
+    }
+
+    /**
+     * Sessions of the given members on one day that have already been copied into 'daily_attendance'.
+     * The returned sessions carry no attendance ID.
+     */
+    public List<SessionWrite> findArchivedSessions(Collection<Integer> userIds, LocalDate attendanceDate) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> params = new ArrayList<>(userIds);
+        params.add(attendanceDate);
+        return jdbcTemplate.query(
+                "SELECT user_id, check_in, check_out FROM daily_attendance " +
+                "WHERE user_id IN (" + placeholders(userIds.size()) + ") AND attendance_date = ?",
+                (rs, rowNum) -> {
+                    Timestamp checkOut = rs.getTimestamp("check_out");
+                    return new SessionWrite(null, rs.getInt("user_id"), attendanceDate,
+                            rs.getTimestamp("check_in").toLocalDateTime(), checkOut != null ? checkOut.toLocalDateTime() : null);
+                },
+                params.toArray());
+    }
+
+    /**
+     * IDs of the oldest rows dated before the cutoff, at most limit of them.
+     */
+    public List<Integer> findIdsDatedBefore(LocalDate cutoff, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT attendance_id FROM attendance WHERE attendance_date < ? ORDER BY attendance_id LIMIT ?",
+                Integer.class, cutoff, limit);
+    }
+
+    /**
+     * Copies the given rows into 'daily_attendance', completed or not, replacing any earlier copy.
+     */
+    public int copyToDailyAttendance(List<Integer> attendanceIds) {
+        if (attendanceIds.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            INSERT INTO daily_attendance (user_id, check_in, check_out, time_spent_minutes, attendance_date)
+            SELECT att.user_id, att.check_in_time, att.check_out_time, att.time_spent_minutes, att.attendance_date
+            FROM attendance att
+            WHERE att.attendance_id IN (%s)
+            ON DUPLICATE KEY UPDATE
+                check_in = VALUES(check_in),
+                check_out = VALUES(check_out),
+                time_spent_minutes = VALUES(time_spent_minutes);
+            """.formatted(placeholders(attendanceIds.size()));
+        return jdbcTemplate.update(sql, attendanceIds.toArray());
+    }
+
+    public int deleteByIds(List<Integer> attendanceIds) {
+        if (attendanceIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(
+                "DELETE FROM attendance WHERE attendance_id IN (" + placeholders(attendanceIds.size()) + ")",
+                attendanceIds.toArray());
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -3,10 +3,14 @@ package com.gym.gymmanagementsystem.repository;
 import com.gym.gymmanagementsystem.model.Attendance;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +30,94 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Integer>
 
     // NEW METHOD: Find all attendance records for a specific date where check_out_time is NULL
     List<Attendance> findByCheckOutTimeIsNullAndAttendanceDate(LocalDate attendanceDate);
-}
\ No newline at end of file
+
+    // Existing rows for a set of members on one day, used to seed batch ingestion of buffered taps
+    List<Attendance> findByUserUserIdInAndAttendanceDate(Collection<Integer> userIds, LocalDate attendanceDate);
+
+    interface PresenceView {
+        Integer getUserId();
+        Integer getAttendanceId();
+        LocalDateTime getCheckInTime();
+        LocalDateTime getCheckOutTime();
+    }
+
+    // All of a day's sessions (open and closed), used to rebuild the in-memory presence index
+    @Query("SELECT a.user.userId AS userId, a.attendanceId AS attendanceId, a.checkInTime AS checkInTime, " +
+           "a.checkOutTime AS checkOutTime FROM Attendance a WHERE a.attendanceDate = :attendanceDate")
+    List<PresenceView> findPresenceByAttendanceDate(@Param("attendanceDate") LocalDate attendanceDate);
+
+    // Closes an open session in a single UPDATE without loading the entity first.
+    // Returns 0 if the row is gone or was already checked out.
+    @Modifying
+    @Query("UPDATE Attendance a SET a.checkOutTime = :checkOutTime, a.timeSpentMinutes = :timeSpentMinutes " +
+           "WHERE a.attendanceId = :attendanceId AND a.checkOutTime IS NULL")
+    int closeSession(@Param("attendanceId") Integer attendanceId,
+                     @Param("checkOutTime") LocalDateTime checkOutTime,
+                     @Param("timeSpentMinutes") Long timeSpentMinutes);
+
+    // Per-reason counts of today's open sessions that checkout-all will leave open.
+    // "Eligible" mirrors the check-in rule: status Active, or a plan that has not ended yet.
+    interface CheckoutSkipCounts {
+        Long getMembershipNotActive();
+        Long getMinimumStayNotReached();
+    }
+
+    @Query(value = """
+            SELECT
+                COUNT(CASE WHEN NOT (u.membership_status = 'Active'
+                                     OR (u.current_plan_end_date IS NOT NULL AND u.current_plan_end_date >= :today))
+                           THEN 1 END) AS membershipNotActive,
+                COUNT(CASE WHEN (u.membership_status = 'Active'
+                                 OR (u.current_plan_end_date IS NOT NULL AND u.current_plan_end_date >= :today))
+                                AND a.check_in_time > :latestEligibleCheckIn
+                           THEN 1 END) AS minimumStayNotReached
+            FROM attendance a
+            JOIN users u ON u.user_id = a.user_id
+            WHERE a.attendance_date = :today
+              AND a.check_out_time IS NULL
+            """, nativeQuery = true)
+    CheckoutSkipCounts countOpenSessionsSkippedAtCheckout(@Param("today") LocalDate today,
+                                                          @Param("latestEligibleCheckIn") LocalDateTime latestEligibleCheckIn);
+
+    // Closing-time checkout in one statement: check_out_time and time_spent_minutes are computed in SQL.
+    // TIMESTAMPDIFF truncates to whole minutes, matching Duration.toMinutes() on the single check-out path.
+    @Modifying
+    @Query(value = """
+            UPDATE attendance a
+            JOIN users u ON u.user_id = a.user_id
+            SET a.check_out_time = :now,
+                a.time_spent_minutes = TIMESTAMPDIFF(MINUTE, a.check_in_time, :now)
+            WHERE a.attendance_date = :today
+              AND a.check_out_time IS NULL
+              AND a.check_in_time <= :latestEligibleCheckIn
+              AND (u.membership_status = 'Active'
+                   OR (u.current_plan_end_date IS NOT NULL AND u.current_plan_end_date >= :today))
+            """, nativeQuery = true)
+    int closeEligibleOpenSessions(@Param("today") LocalDate today,
+                                  @Param("now") LocalDateTime now,
+                                  @Param("latestEligibleCheckIn") LocalDateTime latestEligibleCheckIn);
+
+    interface DailyCount {
+        LocalDate getAttendanceDate();
+        Long getAttendanceCount();
+    }
+
+    // Members present per day in [startDate, endDate], from both the hot 'attendance' table and the
+    // persistent 'daily_attendance' copy. UNION removes member/day pairs present in both, and both
+    // sides are range scans on their (attendance_date, user_id) index, so the cost depends on the
+    // requested range rather than on how much history the tables hold.
+    @Query(value = """
+            SELECT t.attendance_date AS attendanceDate, COUNT(*) AS attendanceCount
+            FROM (
+                SELECT user_id, attendance_date FROM attendance
+                WHERE attendance_date BETWEEN :startDate AND :endDate
+                UNION
+                SELECT user_id, attendance_date FROM daily_attendance
+                WHERE attendance_date BETWEEN :startDate AND :endDate
+            ) t
+            GROUP BY t.attendance_date
+            ORDER BY t.attendance_date
+            """, nativeQuery = true)
+    List<DailyCount> countDailyAttendance(@Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+}
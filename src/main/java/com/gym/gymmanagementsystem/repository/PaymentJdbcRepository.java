@@ -0,0 +1,61 @@
+package com.gym.gymmanagementsystem.repository;
+
+import com.gym.gymmanagementsystem.dto.PaymentResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC reads over 'payments' for bulk consumers such as exports, which must not
+ * materialize entities or whole result lists.
+ */
+@Repository
+public class PaymentJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams every payment dated in [from, to] (optionally for one member) to the consumer from a
+     * forward-only streaming result set. User and plan names come from the same statement.
+     */
+    public void streamPayments(LocalDate from, LocalDate to, Integer userId, int fetchSize,
+                               Consumer<PaymentResponseDTO> consumer) {
+        String sql = """
+            SELECT p.payment_id, p.user_id, u.name, p.amount, p.due_amount, p.payment_date,
+                   p.payment_method, p.payment_method_detail, p.membership_plan_id, mp.plan_name,
+                   p.transaction_id, p.notes
+            FROM payments p
+            LEFT JOIN users u ON u.user_id = p.user_id
+            LEFT JOIN membership_plans mp ON mp.plan_id = p.membership_plan_id
+            WHERE p.payment_date BETWEEN ? AND ?
+            """ + (userId != null ? " AND p.user_id = ?" : "") + " ORDER BY p.payment_date, p.payment_id";
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        if (userId != null) {
+            args.add(userId);
+        }
+
+        jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, sql, fetchSize, args.toArray()), (RowCallbackHandler) rs -> {
+            PaymentResponseDTO dto = new PaymentResponseDTO();
+            dto.setPaymentId(rs.getInt("payment_id"));
+            dto.setUserId(rs.getInt("user_id"));
+            dto.setUserName(rs.getString("name"));
+            dto.setAmount(rs.getDouble("amount"));
+            dto.setDueAmount(rs.getDouble("due_amount"));
+            dto.setPaymentDate(rs.getObject("payment_date", LocalDate.class));
+            dto.setPaymentMethod(rs.getString("payment_method"));
+            dto.setPaymentMethodDetail(rs.getString("payment_method_detail"));
+            dto.setMembershipPlanId(rs.getObject("membership_plan_id", Integer.class));
+            dto.setMembershipPlanName(rs.getString("plan_name"));
+            dto.setTransactionId(rs.getString("transaction_id"));
+            dto.setNotes(rs.getString("notes"));
+            consumer.accept(dto);
+        });
+    }
+}
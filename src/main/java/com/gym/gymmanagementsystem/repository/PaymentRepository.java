@@ -1,7 +1,12 @@
 package com.gym.gymmanagementsystem.repository;
 
 import com.gym.gymmanagementsystem.model.Payment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -9,9 +14,32 @@ import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
+    // Listings show the member's name, so the member is fetched in the same statement instead of once per row
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Payment> findAll(Pageable pageable);
+
     // Custom query to find payments by user ID
+    @EntityGraph(attributePaths = "user")
     List<Payment> findByUserUserId(Integer userId);
 
     // Custom query for analytics (e.g., sum of amounts within a date range)
     List<Payment> findByPaymentDateBetween(LocalDate startDate, LocalDate endDate);
+
+    // Seek pagination on (paymentDate, paymentId) over idx_payments_date_id, with the member fetched in the
+    // same statement; PageRequest.of(0, n) bounds the slice size. As in UserRepository, the first slice has its
+    // own query and the seek condition bounds the leading column so MySQL can range-scan the index.
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user ORDER BY p.paymentDate ASC, p.paymentId ASC")
+    List<Payment> findFirstSlice(Pageable limit);
+
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user WHERE p.paymentDate >= :afterDate " +
+           "AND (p.paymentDate > :afterDate OR p.paymentId > :afterId) ORDER BY p.paymentDate ASC, p.paymentId ASC")
+    List<Payment> findSliceAfter(@Param("afterDate") LocalDate afterDate, @Param("afterId") Integer afterId, Pageable limit);
+
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user ORDER BY p.paymentDate DESC, p.paymentId DESC")
+    List<Payment> findLastSlice(Pageable limit);
+
+    @Query("SELECT p FROM Payment p JOIN FETCH p.user WHERE p.paymentDate <= :afterDate " +
+           "AND (p.paymentDate < :afterDate OR p.paymentId < :afterId) ORDER BY p.paymentDate DESC, p.paymentId DESC")
+    List<Payment> findSliceBefore(@Param("afterDate") LocalDate afterDate, @Param("afterId") Integer afterId, Pageable limit);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.gym.gymmanagementsystem.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Prepares the forward-only statements behind the bulk streams (exports, index backfills).
+ *
+ * MySQL's driver buffers a whole result set unless the statement asks for row-by-row streaming with
+ * a fetch size of Integer.MIN_VALUE, so that is what these statements do on MySQL; the connection's
+ * other statements keep the default buffered behaviour. Other databases get the configured fetch size.
+ */
+final class StreamingStatements {
+
+    private StreamingStatements() {
+    }
+
+    static PreparedStatement prepare(Connection connection, String sql, int fetchSize, Object... args) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        ps.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+        for (int i = 0; i < args.length; i++) {
+            ps.setObject(i + 1, args[i]);
+        }
+        return ps;
+    }
+}
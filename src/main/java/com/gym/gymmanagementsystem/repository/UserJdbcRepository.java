@@ -0,0 +1,90 @@
+package com.gym.gymmanagementsystem.repository;
+
+import com.gym.gymmanagementsystem.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC access to the 'users' table for write paths that handle many members at once (bulk import)
+ * or many rows per member (deletion). Member IDs are assigned by the caller, so rows are inserted as-is in
+ * one JDBC batch without the select-then-insert that a JPA save of an entity with a preset ID does.
+ */
+@Repository
+public class UserJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (user_id, name, age, gender, contact_number, membership_status, joining_date, " +
+            "current_plan_id, current_plan_start_date, current_plan_end_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public void insertUsers(List<User> users) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), (ps, user) -> {
+            ps.setInt(1, user.getUserId());
+            ps.setString(2, user.getName());
+            ps.setObject(3, user.getAge(), Types.INTEGER);
+            ps.setString(4, user.getGender());
+            ps.setString(5, user.getContactNumber());
+            ps.setString(6, user.getMembershipStatus());
+            ps.setObject(7, user.getJoiningDate());
+            ps.setObject(8, user.getCurrentPlanId(), Types.INTEGER);
+            ps.setObject(9, user.getCurrentPlanStartDate(), Types.DATE);
+            ps.setObject(10, user.getCurrentPlanEndDate(), Types.DATE);
+        });
+    }
+
+    /**
+     * Which of the given IDs already belong to a member.
+     */
+    public Set<Integer> findExistingIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        return new HashSet<>(named.queryForList("SELECT user_id FROM users WHERE user_id IN (:ids)",
+                new MapSqlParameterSource("ids", userIds), Integer.class));
+    }
+
+    // Everything recorded against a member, children first; each DELETE is a range on an index led by user_id
+    private static final String[] MEMBER_TABLES = {
+            "attendance", "daily_attendance", "monthly_attendance_summary", "yearly_attendance_summary", "payments", "users"
+    };
+
+    /**
+     * Deletes a member and all their attendance, summary and payment rows with one statement per table,
+     * instead of loading the member's history through the JPA cascade and deleting it row by row.
+     * Call inside a transaction.
+     *
+     * @return 1 if the member existed, 0 otherwise.
+     */
+    public int deleteMember(int userId) {
+        int deleted = 0;
+        for (String table : MEMBER_TABLES) {
+            deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ?", userId);
+        }
+        return deleted;
+    }
+
+    /**
+     * Marks a member deleted and takes them off their plan, leaving their history in place.
+     *
+     * @return 1 if the member existed and was not deleted already, 0 otherwise.
+     */
+    public int softDeleteMember(int userId, LocalDateTime deletedAt) {
+        return jdbcTemplate.update("UPDATE users SET deleted_at = ?, membership_status = 'Deleted', current_plan_id = NULL, " +
+                "current_plan_start_date = NULL, current_plan_end_date = NULL WHERE user_id = ? AND deleted_at IS NULL",
+                Timestamp.valueOf(deletedAt), userId);
+    }
+}
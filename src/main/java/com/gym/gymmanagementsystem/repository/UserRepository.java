@@ -1,13 +1,17 @@
 package com.gym.gymmanagementsystem.repository;
 
+import com.gym.gymmanagementsystem.dto.UserResponseDTO;
 import com.gym.gymmanagementsystem.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +26,42 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     List<User> findByMembershipStatus(String status);
 
+    long countByMembershipStatusAndCurrentPlanEndDateAfter(String status, LocalDate date);
+
+    // Members on a plan ending between the two dates, by end date. Ended plans are 'Expired' and running ones
+    // 'Active', so the IN list lets the status/end date index serve the range.
+    @Query("SELECT u FROM User u WHERE u.membershipStatus IN ('Active', 'Expired') AND u.currentPlanId IS NOT NULL " +
+           "AND u.currentPlanEndDate BETWEEN :from AND :to ORDER BY u.currentPlanEndDate, u.userId")
+    List<User> findPlansEndingBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Active members per plan, for the dashboard's plan distribution
+    @Query("SELECT u.currentPlanId AS planId, COUNT(u) AS members FROM User u WHERE u.membershipStatus = 'Active' " +
+           "AND u.currentPlanEndDate > :today AND u.currentPlanId IS NOT NULL AND u.currentPlanStartDate IS NOT NULL " +
+           "GROUP BY u.currentPlanId")
+    List<PlanMemberCount> countActiveMembersByPlan(@Param("today") LocalDate today);
+
+    interface PlanMemberCount {
+        Integer getPlanId();
+        long getMembers();
+    }
+
+    // Stored status maintenance (MembershipStatusService), with the same rule as UserService.membershipStatus.
+    // Plans ending is the only change time brings, and those rows are found through the status/end date index.
+    @Modifying
+    @Query("UPDATE User u SET u.membershipStatus = 'Expired' WHERE u.membershipStatus = 'Active' " +
+           "AND u.currentPlanEndDate <= :today AND u.currentPlanId IS NOT NULL")
+    int expireEndedPlans(@Param("today") LocalDate today);
+
+    String STATUS_RULE = "CASE WHEN u.currentPlanId IS NULL OR u.currentPlanEndDate IS NULL THEN 'Inactive' " +
+           "WHEN u.currentPlanEndDate > :today THEN 'Active' ELSE 'Expired' END";
+
+    // Full pass for anything else out of step (rows written around UserService, missing statuses); only rows that change
+    // are written. Soft-deleted members keep their 'Deleted' status.
+    @Modifying
+    @Query("UPDATE User u SET u.membershipStatus = " + STATUS_RULE + " WHERE u.deletedAt IS NULL " +
+           "AND (u.membershipStatus IS NULL OR u.membershipStatus <> " + STATUS_RULE + ")")
+    int recomputeAllStatuses(@Param("today") LocalDate today);
+
     // Existing methods (if you define these, make sure they return Page)
     Page<User> findByUserId(Integer userId, Pageable pageable);
     Page<User> findByNameContainingIgnoreCase(String name, Pageable pageable);
@@ -30,12 +70,102 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     // This will search by name, user ID (as string), or contact number
     // IMPORTANT: This requires MySQL 8+ or PostgreSQL for CAST(u.userId AS string)
     // If you are using MySQL 5.7, use CONVERT(u.userId, CHAR) instead of CAST.
-    @Query("SELECT u FROM User u WHERE " +
+    @Query("SELECT u FROM User u WHERE u.deletedAt IS NULL AND (" +
            "LOWER(u.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "CAST(u.userId AS string) LIKE CONCAT('%', :query, '%') OR " + // MySQL 8+ or PostgreSQL
            // "CONVERT(u.userId, CHAR) LIKE CONCAT('%', :query, '%') OR " + // Use this for MySQL 5.7
-           "LOWER(u.contactNumber) LIKE LOWER(CONCAT('%', :query, '%'))")
+           "LOWER(u.contactNumber) LIKE LOWER(CONCAT('%', :query, '%')))")
     Page<User> findBySearchQuery(@Param("query") String query, Pageable pageable);
 
+    // Member list rows built in the query itself: plan name from a LEFT JOIN on membership_plans and
+    // status/isActive from the plan dates, so a page is one SELECT (plus its count) and no entities are managed.
+    // A plan reference with missing dates reads as 'Inactive'; one pointing at a deleted plan as 'Unknown Plan'.
+    // Soft-deleted members are left out of every listing.
+    String HAS_PLAN_DATES = "u.currentPlanId IS NOT NULL AND u.currentPlanStartDate IS NOT NULL AND u.currentPlanEndDate IS NOT NULL";
+    String HAS_PLAN = "p.planId IS NOT NULL AND u.currentPlanStartDate IS NOT NULL AND u.currentPlanEndDate IS NOT NULL";
+    String RESPONSE_SELECT = "SELECT new com.gym.gymmanagementsystem.dto.UserResponseDTO(" +
+           "u.userId, u.name, u.age, u.gender, u.contactNumber, u.joiningDate, " +
+           "CASE WHEN " + HAS_PLAN + " AND u.currentPlanEndDate > :today THEN 'Active' " +
+           "WHEN " + HAS_PLAN + " THEN 'Expired' ELSE 'Inactive' END, " +
+           "CASE WHEN " + HAS_PLAN + " AND u.currentPlanEndDate > :today THEN TRUE ELSE FALSE END, " +
+           "CASE WHEN " + HAS_PLAN_DATES + " THEN u.currentPlanId ELSE NULL END, " +
+           "CASE WHEN " + HAS_PLAN + " THEN p.planName WHEN " + HAS_PLAN_DATES + " THEN 'Unknown Plan' ELSE NULL END, " +
+           "CASE WHEN " + HAS_PLAN + " THEN u.currentPlanStartDate ELSE NULL END, " +
+           "CASE WHEN " + HAS_PLAN + " THEN u.currentPlanEndDate ELSE NULL END) " +
+           "FROM User u LEFT JOIN MembershipPlan p ON p.planId = u.currentPlanId";
+    String NOT_DELETED = " WHERE u.deletedAt IS NULL";
+    String SEARCH_CONDITION = NOT_DELETED + " AND (" +
+           "LOWER(u.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+           "CAST(u.userId AS string) LIKE CONCAT('%', :query, '%') OR " +
+           "LOWER(u.contactNumber) LIKE LOWER(CONCAT('%', :query, '%')))";
+
+    @Query(value = RESPONSE_SELECT + NOT_DELETED, countQuery = "SELECT COUNT(u) FROM User u" + NOT_DELETED)
+    Page<UserResponseDTO> findAllResponses(@Param("today") LocalDate today, Pageable pageable);
+
+    @Query(value = RESPONSE_SELECT + SEARCH_CONDITION, countQuery = "SELECT COUNT(u) FROM User u" + SEARCH_CONDITION)
+    Page<UserResponseDTO> findResponsesBySearchQuery(@Param("query") String query, @Param("today") LocalDate today, Pageable pageable);
+
+    @Query(RESPONSE_SELECT + NOT_DELETED + " AND u.userId = :userId")
+    Optional<UserResponseDTO> findResponseById(@Param("userId") Integer userId, @Param("today") LocalDate today);
+
+    @Query(value = RESPONSE_SELECT + NOT_DELETED + " AND u.userId IN :userIds",
+           countQuery = "SELECT COUNT(u) FROM User u" + NOT_DELETED + " AND u.userId IN :userIds")
+    Page<UserResponseDTO> findResponsesByUserIdIn(@Param("userIds") Collection<Integer> userIds, @Param("today") LocalDate today, Pageable pageable);
+
+    // Backed by the status/end date index; the status column is kept current by MembershipStatusService
+    @Query(RESPONSE_SELECT + NOT_DELETED + " AND u.membershipStatus = :status ORDER BY u.userId")
+    List<UserResponseDTO> findResponsesByMembershipStatus(@Param("status") String status, @Param("today") LocalDate today);
+
+    // Seek pagination on (joiningDate, userId) over idx_users_joining_date_user, no COUNT; PageRequest.of(0, n)
+    // bounds the slice size. The first slice has its own query so the seek condition never needs a null check.
+    // (joiningDate, userId) > (:afterDate, :afterId) is spelled out with a bound on the leading column,
+    // which MySQL turns into an index range; it does not do that for the row-value comparison itself.
+    @Query(RESPONSE_SELECT + NOT_DELETED + " ORDER BY u.joiningDate ASC, u.userId ASC")
+    List<UserResponseDTO> findFirstResponses(@Param("today") LocalDate today, Pageable limit);
+
+    @Query(RESPONSE_SELECT + NOT_DELETED + " AND u.joiningDate >= :afterDate " +
+           "AND (u.joiningDate > :afterDate OR u.userId > :afterId) ORDER BY u.joiningDate ASC, u.userId ASC")
+    List<UserResponseDTO> findResponsesAfter(@Param("afterDate") LocalDate afterDate, @Param("afterId") Integer afterId,
+                                             @Param("today") LocalDate today, Pageable limit);
+
+    @Query(RESPONSE_SELECT + NOT_DELETED + " ORDER BY u.joiningDate DESC, u.userId DESC")
+    List<UserResponseDTO> findLastResponses(@Param("today") LocalDate today, Pageable limit);
+
+    @Query(RESPONSE_SELECT + NOT_DELETED + " AND u.joiningDate <= :afterDate " +
+           "AND (u.joiningDate < :afterDate OR u.userId < :afterId) ORDER BY u.joiningDate DESC, u.userId DESC")
+    List<UserResponseDTO> findResponsesBefore(@Param("afterDate") LocalDate afterDate, @Param("afterId") Integer afterId,
+                                              @Param("today") LocalDate today, Pageable limit);
+
+    // The fields MemberSearchIndex is built from
+    interface SearchFieldsView {
+        Integer getUserId();
+        String getName();
+        String getContactNumber();
+    }
+
+    @Query("SELECT u.userId AS userId, u.name AS name, u.contactNumber AS contactNumber FROM User u" + NOT_DELETED)
+    List<SearchFieldsView> findAllSearchFields();
+
+    // Just the columns a check-in needs, without loading the User entity
+    interface EligibilityView {
+        Integer getUserId();
+        String getName();
+        String getMembershipStatus();
+        LocalDate getCurrentPlanEndDate();
+    }
+
+    @Query("SELECT u.userId AS userId, u.name AS name, u.membershipStatus AS membershipStatus, " +
+           "u.currentPlanEndDate AS currentPlanEndDate FROM User u" + NOT_DELETED + " AND u.userId IN :userIds")
+    List<EligibilityView> findEligibilityByUserIdIn(@Param("userIds") Collection<Integer> userIds);
+
+    interface JoiningView {
+        Integer getUserId();
+        LocalDate getJoiningDate();
+    }
+
+    @Query("SELECT u.userId AS userId, u.joiningDate AS joiningDate FROM User u " +
+           "WHERE u.joiningDate BETWEEN :from AND :to")
+    List<JoiningView> findJoiningDatesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
     // You no longer need findAllByOrderByMembershipStatusAsc/Desc as findAll(Pageable) handles it.
 }
\ No newline at end of file
@@ -0,0 +1,273 @@
+package com.gym.gymmanagementsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of turnstile taps, used while the database is unreachable.
+ *
+ * Taps are fixed-size records (sequence, userId, tap time, CRC) written into memory-mapped segment
+ * files of a fixed size; when a segment is full the journal rolls over to a new one named after
+ * its first sequence number. Tap times keep their nanoseconds, so a replayed tap still equals the
+ * one already recorded and is reported as ALREADY_RECORDED rather than taken as a new tap. A checkpoint file holds the last sequence applied to the database,
+ * and segments entirely below it are deleted. On startup the tail of the last segment is scanned
+ * and stops at the first record that is missing or fails its CRC, so a torn write is discarded.
+ */
+@Component
+public class AttendanceJournal {
+
+    static final int RECORD_SIZE = 28; // long sequence, int userId, long tap epoch second, int tap nanos, int crc
+    private static final int CRC_OFFSET = RECORD_SIZE - Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * One journaled tap.
+     */
+    public record Entry(long sequence, Integer userId, LocalDateTime timestamp) {}
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final boolean forceOnAppend;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>(); // First sequence -> file
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private long activeFirstSequence;
+    private long lastSequence;
+    private volatile long appliedSequence;
+    private volatile long appendedSequence;
+
+    public AttendanceJournal(@Value("${application.attendance.journal.enabled:false}") boolean enabled,
+                             @Value("${application.attendance.journal.dir:./data/attendance-journal}") String directory,
+                             @Value("${application.attendance.journal.segment-size:1048576}") int segmentSize,
+                             @Value("${application.attendance.journal.force-on-append:false}") boolean forceOnAppend) {
+        if (segmentSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("Journal segment size must hold at least one record");
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.recordsPerSegment = segmentSize / RECORD_SIZE;
+        this.forceOnAppend = forceOnAppend;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public synchronized void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+            appliedSequence = Files.exists(checkpoint) ? ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong() : 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .forEach(path -> segments.put(firstSequenceOf(path), path));
+            }
+            lastSequence = appliedSequence;
+            if (!segments.isEmpty()) {
+                Map.Entry<Long, Path> last = segments.lastEntry();
+                mapActive(last.getKey(), last.getValue());
+                int count = 0;
+                while (count < recordsPerSegment && readValid(activeBuffer, count, activeFirstSequence + count) != null) {
+                    count++;
+                }
+                activeBuffer.position(count * RECORD_SIZE);
+                lastSequence = Math.max(lastSequence, activeFirstSequence + count - 1);
+            }
+            appendedSequence = lastSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open attendance journal in " + directory, e);
+        }
+    }
+
+    /**
+     * True while there are journaled taps the database has not seen yet.
+     */
+    public boolean hasPending() {
+        return enabled && appendedSequence > appliedSequence;
+    }
+
+    public long pendingCount() {
+        return enabled ? appendedSequence - appliedSequence : 0;
+    }
+
+    /**
+     * Appends a tap and returns its sequence number.
+     */
+    public synchronized long append(Integer userId, LocalDateTime timestamp) {
+        if (!enabled) {
+            throw new IllegalStateException("Attendance journal is disabled");
+        }
+        try {
+            if (activeBuffer == null || activeBuffer.remaining() < RECORD_SIZE) {
+                rollOver();
+            }
+            long sequence = lastSequence + 1;
+            int offset = activeBuffer.position();
+            activeBuffer.putLong(sequence);
+            activeBuffer.putInt(userId);
+            Instant tapTime = timestamp.toInstant(ZoneOffset.UTC); // Tap times are local wall-clock times; UTC is only an encoding
+            activeBuffer.putLong(tapTime.getEpochSecond());
+            activeBuffer.putInt(tapTime.getNano());
+            activeBuffer.putInt(crc(activeBuffer, offset));
+            if (forceOnAppend) {
+                activeBuffer.force(offset, RECORD_SIZE);
+            }
+            lastSequence = sequence;
+            appendedSequence = sequence;
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to attendance journal", e);
+        }
+    }
+
+    /**
+     * Returns up to max taps after the checkpoint, oldest first.
+     */
+    public synchronized List<Entry> readPending(int max) {
+        List<Entry> entries = new ArrayList<>();
+        if (!hasPending()) {
+            return entries;
+        }
+        try {
+            long next = appliedSequence + 1;
+            while (entries.size() < max && next <= lastSequence) {
+                Map.Entry<Long, Path> segment = segments.floorEntry(next);
+                if (segment == null) {
+                    break;
+                }
+                ByteBuffer buffer = segment.getKey() == activeFirstSequence ? activeBuffer.duplicate() : mapReadOnly(segment.getValue());
+                long segmentStart = next;
+                for (int index = (int) (next - segment.getKey()); entries.size() < max && next <= lastSequence; index++, next++) {
+                    Entry entry = readValid(buffer, index, next);
+                    if (entry == null) {
+                        break; // End of this segment; the next one starts at this sequence
+                    }
+                    entries.add(entry);
+                }
+                if (next == segmentStart) {
+                    break; // Unreadable record: stop here rather than skip a tap
+                }
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read attendance journal", e);
+        }
+    }
+
+    /**
+     * Records that every tap up to and including sequence has been applied, and deletes segments
+     * that hold nothing newer.
+     */
+    public synchronized void markApplied(long sequence) {
+        if (sequence <= appliedSequence) {
+            return;
+        }
+        try {
+            Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+            Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.write(temporary, ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            appliedSequence = sequence;
+
+            while (segments.size() > 1) {
+                Map.Entry<Long, Path> oldest = segments.firstEntry();
+                Long following = segments.higherKey(oldest.getKey());
+                if (following - 1 > appliedSequence) {
+                    break;
+                }
+                Files.deleteIfExists(oldest.getValue());
+                segments.remove(oldest.getKey());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write attendance journal checkpoint", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeBuffer != null) {
+            activeBuffer.force();
+        }
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+    }
+
+    private void rollOver() throws IOException {
+        if (activeBuffer != null) {
+            activeBuffer.force();
+            activeChannel.close();
+        }
+        long firstSequence = lastSequence + 1;
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        segments.put(firstSequence, path);
+        mapActive(firstSequence, path);
+    }
+
+    private void mapActive(long firstSequence, Path path) throws IOException {
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        activeFirstSequence = firstSequence;
+    }
+
+    private ByteBuffer mapReadOnly(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Returns the record at index if it carries the expected sequence and a valid CRC, otherwise null
+    private static Entry readValid(ByteBuffer buffer, int index, long expectedSequence) {
+        int offset = index * RECORD_SIZE;
+        if (offset + RECORD_SIZE > buffer.limit()) {
+            return null;
+        }
+        long sequence = buffer.getLong(offset);
+        if (sequence != expectedSequence || buffer.getInt(offset + CRC_OFFSET) != crc(buffer, offset)) {
+            return null;
+        }
+        Instant tapTime = Instant.ofEpochSecond(buffer.getLong(offset + 12), buffer.getInt(offset + 20));
+        return new Entry(sequence, buffer.getInt(offset + 8), LocalDateTime.ofInstant(tapTime, ZoneOffset.UTC));
+    }
+
+    private static int crc(ByteBuffer buffer, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(offset).limit(offset + CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static long firstSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
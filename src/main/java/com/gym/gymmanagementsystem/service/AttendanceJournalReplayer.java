@@ -0,0 +1,62 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.AttendanceBatchResponseDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceTapDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceTapResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Applies journaled taps to the database once it is reachable again, oldest first, through
+ * {@link AttendanceService#recordAttendanceBatch(List)} so each tap is decided with the same rules
+ * (and its own timestamp) as a live tap. The checkpoint only moves after a batch has committed;
+ * if the application stops in between, the batch is replayed and the taps already recorded are
+ * recognised by their exact timestamps and not written twice.
+ */
+@Component
+public class AttendanceJournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceJournalReplayer.class);
+
+    @Autowired
+    private AttendanceJournal journal;
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Value("${application.attendance.journal.replay-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${application.attendance.journal.replay-interval-ms:5000}")
+    public void replay() {
+        if (!journal.hasPending()) {
+            return;
+        }
+        try {
+            List<AttendanceJournal.Entry> entries;
+            while (!(entries = journal.readPending(batchSize)).isEmpty()) {
+                List<AttendanceTapDTO> taps = entries.stream().map(entry -> {
+                    AttendanceTapDTO tap = new AttendanceTapDTO();
+                    tap.setUserId(entry.userId());
+                    tap.setTimestamp(entry.timestamp());
+                    return tap;
+                }).toList();
+                AttendanceBatchResponseDTO response = attendanceService.recordAttendanceBatch(taps);
+                journal.markApplied(entries.get(entries.size() - 1).sequence());
+                for (AttendanceTapResultDTO result : response.getResults()) {
+                    if ("REJECTED".equals(result.getAction()) || "ARCHIVED".equals(result.getAction())) {
+                        log.warn("Journaled tap of user {} at {} rejected on replay: {}", result.getUserId(), result.getTimestamp(), result.getMessage());
+                    }
+                }
+                log.info("Replayed {} journaled taps; {} still pending.", taps.size(), journal.pendingCount());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Attendance journal replay deferred: {}", e.getMessage());
+        }
+    }
+}
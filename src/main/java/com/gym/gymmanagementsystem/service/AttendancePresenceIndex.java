@@ -0,0 +1,181 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.AttendanceRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory view of who is "on the floor" today: one entry per member who has an
+ * attendance row for the current day, holding the row ID and the check-in/check-out times.
+ * The check-in vs check-out decision is answered from here so a turnstile tap does not
+ * need to read the 'attendance' table first.
+ *
+ * The index only ever covers a single day. It is rebuilt from the database on startup
+ * and at midnight, and lazily whenever it is asked about a later day. It never moves back:
+ * an update for an earlier day (a commit that lands just after midnight) is left to the
+ * database, and a lookup for an earlier day reads the member's row directly.
+ *
+ * Updates hold the read side of a lock (the map itself handles concurrent updates) and a rebuild
+ * holds the write side, so an update is applied either to the old map before the reload reads
+ * the table or to the new map after it has been swapped in, never lost in between.
+ */
+@Component
+public class AttendancePresenceIndex {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+    @Autowired
+    private ObjectProvider<AttendanceWriteBehindQueue> writeBehindQueue; // Resolved lazily; the queue depends on this index
+
+    private volatile LocalDate indexedDate;
+    private volatile Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Today's attendance state for one member. checkOutTime is null while the session is open;
+     * attendanceId is null while a write-behind check-in is still waiting to be flushed.
+     */
+    public record Session(Integer attendanceId, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+        public boolean isOpen() {
+            return checkOutTime == null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild(LocalDate.now());
+    }
+
+    @Scheduled(cron = "0 0 0 * * *") // Midnight rollover
+    public void rollOver() {
+        rebuild(LocalDate.now());
+    }
+
+    /**
+     * Reloads the index for the given day from the 'attendance' table. Closed sessions are
+     * loaded as well as open ones so a third tap can still be rejected after a restart.
+     * Taps still waiting in the write-behind queue are laid over the loaded rows.
+     * A day earlier than the one already indexed is ignored.
+     */
+    public void rebuild(LocalDate date) {
+        lock.writeLock().lock();
+        try {
+            if (indexedDate != null && date.isBefore(indexedDate)) {
+                return;
+            }
+            // Read before the table: a write flushed in between is then in the table, the snapshot, or both
+            List<AttendanceWriteBehindQueue.AttendanceWrite> queued = pendingWrites(date);
+            Map<Integer, Session> loaded = new ConcurrentHashMap<>();
+            for (AttendanceRepository.PresenceView row : attendanceRepository.findPresenceByAttendanceDate(date)) {
+                loaded.put(row.getUserId(), new Session(row.getAttendanceId(), row.getCheckInTime(), row.getCheckOutTime()));
+            }
+            for (AttendanceWriteBehindQueue.AttendanceWrite write : queued) {
+                Session stored = loaded.get(write.userId());
+                loaded.put(write.userId(), new Session(stored != null ? stored.attendanceId() : null,
+                        write.checkInTime(), write.checkOutTime()));
+            }
+            sessions = loaded; // Swap in the new day atomically; readers never see a half-built map
+            indexedDate = date;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the member's session for the given day, or null if they have not checked in yet.
+     */
+    public Session getSession(Integer userId, LocalDate date) {
+        ensureIndexed(date);
+        if (date.equals(indexedDate)) { // Read before the map: sessions is swapped in before indexedDate moves
+            return sessions.get(userId);
+        }
+        // A tap that started before midnight after the index moved on; don't drag the index back for it
+        Session stored = attendanceRepository.findByUserUserIdAndAttendanceDate(userId, date)
+                .map(row -> new Session(row.getAttendanceId(), row.getCheckInTime(), row.getCheckOutTime()))
+                .orElse(null);
+        for (AttendanceWriteBehindQueue.AttendanceWrite write : pendingWrites(date)) {
+            if (write.userId().equals(userId)) {
+                stored = new Session(stored != null ? stored.attendanceId() : null, write.checkInTime(), write.checkOutTime());
+            }
+        }
+        return stored;
+    }
+
+    public void recordCheckIn(Integer userId, LocalDate date, Integer attendanceId, LocalDateTime checkInTime) {
+        ensureIndexed(date);
+        update(() -> {
+            if (date.equals(indexedDate)) {
+                sessions.put(userId, new Session(attendanceId, checkInTime, null));
+            }
+        });
+    }
+
+    public void recordCheckOut(Integer userId, LocalDate date, LocalDateTime checkOutTime) {
+        ensureIndexed(date);
+        update(() -> {
+            if (date.equals(indexedDate)) {
+                sessions.computeIfPresent(userId,
+                        (id, session) -> new Session(session.attendanceId(), session.checkInTime(), checkOutTime));
+            }
+        });
+    }
+
+    /**
+     * Fills in the row ID of a session that was acknowledged before its row was written.
+     */
+    public void assignAttendanceId(Integer userId, LocalDate date, Integer attendanceId) {
+        update(() -> {
+            if (date.equals(indexedDate)) {
+                sessions.computeIfPresent(userId, (id, session) -> session.attendanceId() != null ? session
+                        : new Session(attendanceId, session.checkInTime(), session.checkOutTime()));
+            }
+        });
+    }
+
+    public void remove(Integer userId, LocalDate date) {
+        update(() -> {
+            if (date.equals(indexedDate)) {
+                sessions.remove(userId);
+            }
+        });
+    }
+
+    private void update(Runnable change) {
+        lock.readLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countOpenSessions() {
+        ensureIndexed(LocalDate.now());
+        return (int) sessions.values().stream().filter(Session::isOpen).count();
+    }
+
+    private List<AttendanceWriteBehindQueue.AttendanceWrite> pendingWrites(LocalDate date) {
+        AttendanceWriteBehindQueue queue = writeBehindQueue != null ? writeBehindQueue.getIfAvailable() : null;
+        return queue != null && queue.isEnabled() ? queue.pendingWrites(date) : List.of();
+    }
+
+    // Only a later day moves the index forward; earlier days are never reloaded
+    private void ensureIndexed(LocalDate date) {
+        LocalDate indexed = indexedDate;
+        if (indexed == null || date.isAfter(indexed)) {
+            rebuild(date);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.AttendanceJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the temporary 'attendance' table small. Finished days are moved into the persistent
+ * 'daily_attendance' table and deleted from 'attendance' in bounded chunks, each chunk in its own
+ * short transaction. Only the last graceDays days (today included when graceDays is 0) stay hot.
+ */
+@Service
+public class AttendanceRolloverService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceRolloverService.class);
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Days before today that are kept in the hot table (1 = keep yesterday for late corrections)
+    @Value("${application.attendance.rollover.grace-days:1}")
+    private int graceDays;
+
+    @Value("${application.attendance.rollover.chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${application.attendance.rollover.cron:0 30 0 * * *}")
+    public void scheduledRollover() {
+        try {
+            int archived = rollOver();
+            log.info("Attendance rollover archived {} records.", archived);
+        } catch (Exception e) {
+            log.error("Attendance rollover failed", e);
+        }
+    }
+
+    /**
+     * Archives every 'attendance' row dated before today minus the grace window.
+     *
+     * @return the number of rows moved out of the hot table.
+     */
+    public int rollOver() {
+        // Bring daily_attendance and the summaries up to date first, so archiving only has to move rows
+        attendanceSummaryService.generateAttendanceSummaries();
+
+        LocalDate cutoff = LocalDate.now().minusDays(graceDays);
+        int archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<Integer> ids = attendanceJdbcRepository.findIdsDatedBefore(cutoff, chunkSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                attendanceJdbcRepository.copyToDailyAttendance(ids);
+                attendanceSummaryService.refreshSummariesForAttendance(ids);
+                return attendanceJdbcRepository.deleteByIds(ids);
+            });
+            if (moved == null || moved == 0) {
+                return archived;
+            }
+            archived += moved;
+            log.debug("Attendance rollover moved a chunk of {} records ({} so far).", moved, archived);
+        }
+    }
+}
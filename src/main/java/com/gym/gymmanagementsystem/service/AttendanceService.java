@@ -2,24 +2,50 @@ package com.gym.gymmanagementsystem.service;
 
 import com.gym.gymmanagementsystem.model.Attendance;
 import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.repository.AttendanceHistoryRepository;
+import com.gym.gymmanagementsystem.repository.AttendanceJdbcRepository;
 import com.gym.gymmanagementsystem.repository.AttendanceRepository;
 import com.gym.gymmanagementsystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import com.gym.gymmanagementsystem.dto.AttendanceBatchResponseDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceCalendarDTO;
 import com.gym.gymmanagementsystem.dto.AttendanceResponseDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceStreakDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceTapDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceTapResultDTO;
+import com.gym.gymmanagementsystem.dto.CheckoutAllResultDTO;
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
+import com.gym.gymmanagementsystem.util.KeysetCursor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 @Service
 public class AttendanceService {
@@ -28,6 +54,45 @@ public class AttendanceService {
     private AttendanceRepository attendanceRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private AttendancePresenceIndex presenceIndex;
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+    @Autowired
+    private OccupancyService occupancyService;
+    @Autowired
+    private MemberLockStripes memberLocks;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AttendanceWriteBehindQueue writeBehindQueue;
+    @Autowired
+    private AttendanceJournal journal;
+    @Autowired
+    private MemberEligibilityCache eligibilityCache;
+    @Autowired
+    private MemberAttendanceCalendar attendanceCalendar;
+    @Autowired
+    private CohortRetentionService cohortRetentionService;
+
+    private static final long MINIMUM_STAY_MINUTES = 10;
+    private static final LocalDate EARLIEST_HISTORY_DATE = LocalDate.of(1970, 1, 1);
+    private static final LocalDate LATEST_HISTORY_DATE = LocalDate.of(9999, 12, 31);
+
+    private AttendanceResponseDTO toDto(Integer attendanceId, MemberEligibilityCache.Eligibility member,
+                                        LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+        AttendanceResponseDTO dto = new AttendanceResponseDTO();
+        dto.setAttendanceId(attendanceId);
+        dto.setUserId(member.userId());
+        dto.setUserName(member.name());
+        dto.setCheckInTime(checkInTime);
+        dto.setCheckOutTime(checkOutTime);
+        dto.setTimeSpentMinutes(checkOutTime != null ? Duration.between(checkInTime, checkOutTime).toMinutes() : null);
+        dto.setAttendanceDate(checkInTime.toLocalDate());
+        return dto;
+    }
 
     private AttendanceResponseDTO convertToDto(Attendance attendance) {
         AttendanceResponseDTO dto = new AttendanceResponseDTO();
@@ -42,6 +107,7 @@ public class AttendanceService {
         } else {
             dto.setTimeSpentMinutes(null);
         }
+        dto.setAttendanceDate(attendance.getAttendanceDate());
         return dto;
     }
 
@@ -51,134 +117,482 @@ public class AttendanceService {
                 .map(this::convertToDto);
     }
 
-    @Transactional
-    public AttendanceResponseDTO recordOrUpdateAttendance(Integer userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    private static void validateCheckOut(LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+        if (checkOutTime.isBefore(checkInTime)) {
+            throw new RuntimeException("Check-out time cannot be before check-in time.");
+        }
+        Duration durationSinceCheckIn = Duration.between(checkInTime, checkOutTime);
+        if (durationSinceCheckIn.toMinutes() < MINIMUM_STAY_MINUTES) { // cite: 227, 228
+            throw new RuntimeException("Check-out not allowed. User must stay at least 10 minutes (current duration: " + durationSinceCheckIn.toMinutes() + " minutes)."); // cite: 227
+        }
+    }
 
-        // NEW VALIDATION: Check user's membership status before allowing attendance
-        if (!"Active".equalsIgnoreCase(user.getMembershipStatus()) && 
-            (user.getCurrentPlanEndDate() == null || user.getCurrentPlanEndDate().isBefore(LocalDate.now()))) {
-            throw new RuntimeException("User's membership is not active. Status: " + user.getMembershipStatus() + ".");
+    private static RuntimeException alreadyCheckedOut(LocalDateTime checkOutTime) {
+        // MODIFIED ERROR MESSAGE: User has already checked in AND checked out today
+        return new RuntimeException("User has already checked in and checked out today at " + checkOutTime.toLocalTime() + "."); // cite: 230
+    }
+
+    private static RuntimeException concurrentChange() {
+        return new RuntimeException("Attendance record changed concurrently. Please try again.");
+    }
+
+    /**
+     * Records a turnstile tap for the member: a check-in if they have no session today, otherwise a check-out.
+     * Taps of the same member are serialized on their lock stripe, which is held until the transaction has
+     * committed and the presence index reflects it, so a double tap can never see "no row" twice. The unique
+     * key on (user_id, attendance_date) backs this up against writers outside this JVM.
+     *
+     * In write-behind mode the tap is acknowledged as soon as it is queued; the returned record has no
+     * attendanceId yet because the row is written later by {@link AttendanceWriteBehindQueue}.
+     *
+     * If the database cannot be reached the tap goes to the local {@link AttendanceJournal} instead, and
+     * so do all further taps until {@link AttendanceJournalReplayer} has caught up, keeping them in order.
+     */
+    public AttendanceResponseDTO recordOrUpdateAttendance(Integer userId) {
+        if (journal.hasPending()) {
+            return journalTap(userId);
         }
-        // Also ensure current plan is actually active if it exists, as membershipStatus might just be a string.
-        // We can refine this validation to check currentPlanEndDate as well,
-        // although deriveAndSetUserStatus in UserService should keep membershipStatus accurate.
-        // For robustness, let's explicitly check plan end date too if membershipStatus is "Expired" or "Inactive".
-        if ("Expired".equalsIgnoreCase(user.getMembershipStatus())) {
-            throw new RuntimeException("User's membership has expired. Please renew the plan.");
+        try {
+            return memberLocks.withLock(userId, () -> writeBehindQueue.isEnabled()
+                    ? resolveTap(userId)
+                    : transactionTemplate.execute(status -> resolveTap(userId)));
+        } catch (DataIntegrityViolationException e) {
+            presenceIndex.rebuild(LocalDate.now());
+            throw concurrentChange();
+        } catch (CannotCreateTransactionException | DataAccessResourceFailureException
+                 | TransientDataAccessResourceException | RecoverableDataAccessException e) {
+            if (!journal.isEnabled()) {
+                throw e;
+            }
+            return journalTap(userId);
         }
-        if ("Inactive".equalsIgnoreCase(user.getMembershipStatus())) {
-            throw new RuntimeException("User's membership is inactive. Please assign a plan.");
+    }
+
+    // Provisional acknowledgement: whether this is a check-in or check-out is decided on replay.
+    // Eligibility is checked against the cache only, since the database may be the reason we are here.
+    private AttendanceResponseDTO journalTap(Integer userId) {
+        LocalDateTime now = tapTime();
+        MemberEligibilityCache.Eligibility member = eligibilityCache.getIfCached(userId);
+        if (member != null) {
+            member.requireEligibleOn(now.toLocalDate());
         }
+        journal.append(userId, now);
+        AttendanceResponseDTO dto = new AttendanceResponseDTO();
+        dto.setUserId(userId);
+        dto.setUserName(member != null ? member.name() : null);
+        dto.setCheckInTime(now);
+        dto.setAttendanceDate(now.toLocalDate());
+        dto.setJournalStatus(member != null ? "JOURNALED" : "UNVERIFIED");
+        return dto;
+    }
+
+    // The attendance columns keep microseconds; a tap time with more would not read back equal on replay
+    private static LocalDateTime tapTime() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 
+    private AttendanceResponseDTO resolveTap(Integer userId) {
+        // Eligibility comes from the cache; the User row is not loaded on the check-in path
+        MemberEligibilityCache.Eligibility member = eligibilityCache.get(userId);
+        member.requireEligibleOn(LocalDate.now());
 
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = tapTime();
         LocalDate today = now.toLocalDate();
 
-        Optional<Attendance> existingAttendance = attendanceRepository.findByUserUserIdAndAttendanceDate(userId, today);
-        if (existingAttendance.isPresent()) {
-            Attendance attendance = existingAttendance.get();
-            if (attendance.getCheckOutTime() == null) {
+        // Decide check-in vs check-out from the in-memory presence index instead of querying 'attendance'
+        AttendancePresenceIndex.Session session = presenceIndex.getSession(userId, today);
+        if (session != null) {
+            if (session.isOpen()) {
                 // User has checked in but not checked out, so this is a CHECK-OUT action
-                if (now.isBefore(attendance.getCheckInTime())) {
-                    throw new RuntimeException("Check-out time cannot be before check-in time.");
+                validateCheckOut(session.checkInTime(), now);
+
+                long timeSpentMinutes = Duration.between(session.checkInTime(), now).toMinutes();
+                if (writeBehindQueue.isEnabled()) {
+                    writeBehindQueue.enqueue(new AttendanceWriteBehindQueue.AttendanceWrite(userId, today, session.checkInTime(), now));
+                } else if (attendanceRepository.closeSession(session.attendanceId(), now, timeSpentMinutes) == 0) {
+                    // The row was checked out or deleted behind the index's back; resync and let the caller retry
+                    presenceIndex.rebuild(today);
+                    throw concurrentChange();
                 }
+                afterCommit(() -> {
+                    presenceIndex.recordCheckOut(userId, today, now);
+                    occupancyService.checkedOut();
+                });
+                return toDto(session.attendanceId(), member, session.checkInTime(), now);
+            } else {
+                throw alreadyCheckedOut(session.checkOutTime());
+            }
+        } else {
+            // No attendance record for today, so this is a CHECK-IN action
+            Integer attendanceId;
+            if (writeBehindQueue.isEnabled()) {
+                writeBehindQueue.enqueue(new AttendanceWriteBehindQueue.AttendanceWrite(userId, today, now, null));
+                attendanceId = null; // Filled into the presence index when the writer flushes
+            } else {
+                Attendance newAttendance = new Attendance(); // cite: 231
+                newAttendance.setUser(userRepository.getReferenceById(userId)); // cite: 231
+                newAttendance.setCheckInTime(now); // cite: 231
+                newAttendance.setAttendanceDate(today); // cite: 231
+                attendanceId = attendanceRepository.save(newAttendance).getAttendanceId();
+            }
+            afterCommit(() -> {
+                presenceIndex.recordCheckIn(userId, today, attendanceId, now);
+                attendanceCalendar.markPresent(userId, today);
+                cohortRetentionService.recordVisit(userId, today);
+                occupancyService.checkedIn();
+            });
+            return toDto(attendanceId, member, now, null);
+        }
+    }
+
+    private record SessionKey(Integer userId, LocalDate attendanceDate) {}
+
+    // Working state of one member/day session while a batch is being resolved
+    private static final class PendingSession {
+        private final boolean isNew;
+        private boolean archived;
+        private Integer attendanceId;
+        private final LocalDateTime checkInTime;
+        private LocalDateTime checkOutTime;
+        private boolean closedInBatch;
+
+        private PendingSession(boolean isNew, Integer attendanceId, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+            this.isNew = isNew;
+            this.attendanceId = attendanceId;
+            this.checkInTime = checkInTime;
+            this.checkOutTime = checkOutTime;
+        }
+    }
+
+    /**
+     * Resolves an ordered list of turnstile taps with the same check-in/check-out rules as
+     * {@link #recordOrUpdateAttendance(Integer)}, using each tap's own timestamp, and writes the
+     * outcome in one transaction: one eligibility lookup, then one JDBC batch of inserts and one of check-outs.
+     * A member who checks in and out within the same batch gets a single, already-completed row.
+     * The lock stripes of every member in the batch are held for the duration, as for single taps.
+     */
+    public AttendanceBatchResponseDTO recordAttendanceBatch(List<AttendanceTapDTO> taps) {
+        Set<Integer> userIds = taps.stream().map(AttendanceTapDTO::getUserId).collect(Collectors.toSet());
+        try {
+            return memberLocks.withLocks(userIds,
+                    () -> transactionTemplate.execute(status -> resolveBatch(taps, userIds)));
+        } catch (DataIntegrityViolationException e) {
+            presenceIndex.rebuild(LocalDate.now());
+            throw concurrentChange();
+        }
+    }
+
+    private AttendanceBatchResponseDTO resolveBatch(List<AttendanceTapDTO> taps, Set<Integer> userIds) {
+        long startedAt = System.nanoTime();
+        LocalDate today = LocalDate.now();
+
+        Map<Integer, MemberEligibilityCache.Eligibility> members = eligibilityCache.getAll(userIds);
 
-                Duration durationSinceCheckIn = Duration.between(attendance.getCheckInTime(), now);
-                if (durationSinceCheckIn.toMinutes() < 10) { // cite: 227, 228
-                    throw new RuntimeException("Check-out not allowed. User must stay at least 10 minutes (current duration: " + durationSinceCheckIn.toMinutes() + " minutes)."); // cite: 227
+        // Seed state for days other than today (buffered taps) with two queries per day: sessions already
+        // archived in 'daily_attendance', then hot rows, which win where a day is in both tables.
+        // Today's state comes from the presence index as taps are resolved.
+        Map<SessionKey, PendingSession> sessions = new LinkedHashMap<>();
+        taps.stream()
+                .filter(tap -> !tap.getTimestamp().toLocalDate().equals(today))
+                .collect(Collectors.groupingBy(tap -> tap.getTimestamp().toLocalDate(),
+                        Collectors.mapping(AttendanceTapDTO::getUserId, Collectors.toSet())))
+                .forEach((date, ids) -> {
+                    attendanceJdbcRepository.findArchivedSessions(ids, date).forEach(archived -> {
+                        PendingSession session = new PendingSession(false, null, archived.getCheckInTime(), archived.getCheckOutTime());
+                        session.archived = true;
+                        sessions.put(new SessionKey(archived.getUserId(), date), session);
+                    });
+                    attendanceRepository.findByUserUserIdInAndAttendanceDate(ids, date)
+                            .forEach(a -> sessions.put(new SessionKey(a.getUser().getUserId(), date),
+                                    new PendingSession(false, a.getAttendanceId(), a.getCheckInTime(), a.getCheckOutTime())));
+                });
+
+        List<AttendanceTapResultDTO> results = new ArrayList<>(taps.size());
+        List<PendingSession> resultSessions = new ArrayList<>(taps.size());
+        for (int i = 0; i < taps.size(); i++) {
+            AttendanceTapDTO tap = taps.get(i);
+            AttendanceTapResultDTO result = new AttendanceTapResultDTO();
+            result.setIndex(i);
+            result.setUserId(tap.getUserId());
+            result.setTimestamp(tap.getTimestamp());
+            PendingSession session = null;
+            try {
+                MemberEligibilityCache.Eligibility member = members.get(tap.getUserId());
+                if (member == null) {
+                    throw new RuntimeException("User not found with id: " + tap.getUserId());
                 }
+                LocalDate tapDate = tap.getTimestamp().toLocalDate();
+                member.requireEligibleOn(tapDate);
 
-                attendance.setCheckOutTime(now); // cite: 229
-                Duration totalDuration = Duration.between(attendance.getCheckInTime(), now);
-                attendance.setTimeSpentMinutes(totalDuration.toMinutes());
+                SessionKey key = new SessionKey(tap.getUserId(), tapDate);
+                session = sessions.get(key);
+                if (session == null && tapDate.equals(today)) {
+                    AttendancePresenceIndex.Session indexed = presenceIndex.getSession(tap.getUserId(), today);
+                    if (indexed != null) {
+                        session = new PendingSession(false, indexed.attendanceId(), indexed.checkInTime(), indexed.checkOutTime());
+                        sessions.put(key, session);
+                    }
+                }
 
-                return convertToDto(attendanceRepository.save(attendance));
-            } else {
-                // MODIFIED ERROR MESSAGE: User has already checked in AND checked out today
-                throw new RuntimeException("User has already checked in and checked out today at " + attendance.getCheckOutTime().toLocalTime() + "."); // cite: 230
+                if (session == null) {
+                    session = new PendingSession(true, null, tap.getTimestamp(), null);
+                    sessions.put(key, session);
+                    result.setAction("CHECK_IN");
+                } else if (tap.getTimestamp().equals(session.checkInTime) || tap.getTimestamp().equals(session.checkOutTime)) {
+                    // The same tap delivered again (e.g. a journal replay after a crash); already recorded
+                    result.setAction("ALREADY_RECORDED");
+                } else if (session.archived) {
+                    // The day has been rolled over; a new hot row would overwrite the archived session at the next rollover
+                    result.setAction("ARCHIVED");
+                    result.setMessage("Attendance for " + tapDate + " has already been archived and can no longer be changed.");
+                    session = null;
+                } else if (session.checkOutTime == null) {
+                    validateCheckOut(session.checkInTime, tap.getTimestamp());
+                    session.checkOutTime = tap.getTimestamp();
+                    session.closedInBatch = true;
+                    result.setAction("CHECK_OUT");
+                } else {
+                    throw alreadyCheckedOut(session.checkOutTime);
+                }
+            } catch (RuntimeException e) {
+                session = null;
+                result.setAction("REJECTED");
+                result.setMessage(e.getMessage());
+            }
+            results.add(result);
+            resultSessions.add(session);
+        }
+
+        List<AttendanceJdbcRepository.SessionWrite> inserts = new ArrayList<>();
+        List<PendingSession> insertedSessions = new ArrayList<>();
+        List<AttendanceJdbcRepository.SessionWrite> checkOuts = new ArrayList<>();
+        List<AttendanceWriteBehindQueue.AttendanceWrite> queuedCheckOuts = new ArrayList<>();
+        sessions.forEach((key, session) -> {
+            if (session.isNew) {
+                inserts.add(new AttendanceJdbcRepository.SessionWrite(null, key.userId(), key.attendanceDate(),
+                        session.checkInTime, session.checkOutTime));
+                insertedSessions.add(session);
+            } else if (session.closedInBatch && session.attendanceId == null && writeBehindQueue.isEnabled()) {
+                // The check-in is still in the write-behind queue; queue the check-out behind it so it applies after the insert
+                queuedCheckOuts.add(new AttendanceWriteBehindQueue.AttendanceWrite(key.userId(), key.attendanceDate(),
+                        session.checkInTime, session.checkOutTime));
+            } else if (session.closedInBatch) {
+                checkOuts.add(new AttendanceJdbcRepository.SessionWrite(session.attendanceId, key.userId(), key.attendanceDate(),
+                        session.checkInTime, session.checkOutTime));
             }
+        });
+        attendanceJdbcRepository.insertSessions(inserts);
+        for (int i = 0; i < inserts.size(); i++) {
+            insertedSessions.get(i).attendanceId = inserts.get(i).getAttendanceId();
+        }
+        attendanceJdbcRepository.closeSessions(checkOuts);
+        queuedCheckOuts.forEach(writeBehindQueue::enqueue);
+
+        afterCommit(() -> sessions.forEach((key, session) -> {
+            if (session.isNew) {
+                attendanceCalendar.markPresent(key.userId(), key.attendanceDate());
+                cohortRetentionService.recordVisit(key.userId(), key.attendanceDate());
+            }
+            if (!key.attendanceDate().equals(today)) {
+                return;
+            }
+            if (session.isNew) {
+                presenceIndex.recordCheckIn(key.userId(), today, session.attendanceId, session.checkInTime);
+                occupancyService.checkedIn();
+            }
+            if (session.checkOutTime != null && (session.isNew || session.closedInBatch)) {
+                presenceIndex.recordCheckOut(key.userId(), today, session.checkOutTime);
+                occupancyService.checkedOut();
+            }
+        }));
+
+        int accepted = 0;
+        for (int i = 0; i < results.size(); i++) {
+            AttendanceTapResultDTO result = results.get(i);
+            PendingSession session = resultSessions.get(i);
+            if (session == null) {
+                continue;
+            }
+            accepted++;
+            boolean isCheckIn = "CHECK_IN".equals(result.getAction());
+            result.setAttendance(toDto(session.attendanceId, members.get(result.getUserId()), session.checkInTime,
+                    isCheckIn ? null : session.checkOutTime));
+        }
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        AttendanceBatchResponseDTO response = new AttendanceBatchResponseDTO();
+        response.setResults(results);
+        response.setAcceptedCount(accepted);
+        response.setRejectedCount(results.size() - accepted);
+        response.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        response.setTapsPerSecond(elapsedNanos > 0 ? taps.size() * 1_000_000_000.0 / elapsedNanos : 0);
+        return response;
+    }
+
+    // Applies in-memory bookkeeping only once the surrounding transaction has committed,
+    // so a rolled-back write never leaves the presence index out of step with the table.
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
         } else {
-            // No attendance record for today, so this is a CHECK-IN action
-            Attendance newAttendance = new Attendance(); // cite: 231
-            newAttendance.setUser(user); // cite: 231
-            newAttendance.setCheckInTime(now); // cite: 231
-            newAttendance.setAttendanceDate(today); // cite: 231
-            return convertToDto(attendanceRepository.save(newAttendance));
+            action.run();
         }
     }
 
-    public List<Attendance> getAttendanceByUserId(String userId) {
+    public List<AttendanceResponseDTO> getAttendanceByUserId(String userId) {
          try {
             Integer intUserId = Integer.parseInt(userId); // cite: 232
-            User user = userRepository.findById(intUserId) // cite: 232
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId)); // cite: 233
-            return user.getAttendanceRecords(); // cite: 233
+            if (!userRepository.existsById(intUserId)) { // cite: 232
+                throw new RuntimeException("User not found with id: " + userId); // cite: 233
+            }
+            // Full history: recent days from 'attendance', archived days from 'daily_attendance'
+            return attendanceHistoryRepository.findByUserId(intUserId);
          } catch (NumberFormatException e) {
              throw new RuntimeException("Invalid User ID format: " + userId); // cite: 234
          }
     }
 
+    /**
+     * One slice of a member's attendance history, newest first, optionally limited to [from, to].
+     * Uses seek pagination on (attendance_date, attendance_id) so deep slices are as cheap as the first.
+     */
+    public KeysetPageDTO<AttendanceResponseDTO> getAttendanceHistory(Integer userId, LocalDate from, LocalDate to,
+                                                                     String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+        LocalDate afterDate = null;
+        Integer afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            try {
+                afterDate = LocalDate.parse(position.getSortKey());
+                afterId = Integer.parseInt(position.getId());
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid pagination cursor.");
+            }
+        }
+
+        // Fetch one extra row to learn whether another slice follows
+        List<AttendanceResponseDTO> rows = attendanceHistoryRepository.findUserHistorySlice(userId,
+                from != null ? from : EARLIEST_HISTORY_DATE, to != null ? to : LATEST_HISTORY_DATE,
+                afterDate, afterId, size + 1);
+        return KeysetPageDTO.fromRows(rows, size, last -> KeysetCursor.encode(last.getAttendanceDate(),
+                last.getAttendanceId() != null ? last.getAttendanceId() : 0));
+    }
+
+    public AttendanceCalendarDTO getAttendanceCalendar(Integer userId, int year) {
+        List<LocalDate> dates = attendanceCalendar.getDatesPresent(userId, year);
+        AttendanceCalendarDTO dto = new AttendanceCalendarDTO();
+        dto.setUserId(userId);
+        dto.setYear(year);
+        dto.setDaysPresent(dates.size());
+        dto.setDatesPresent(dates);
+        return dto;
+    }
+
+    public AttendanceStreakDTO getAttendanceStreaks(Integer userId) {
+        LocalDate today = LocalDate.now();
+        AttendanceStreakDTO dto = new AttendanceStreakDTO();
+        dto.setUserId(userId);
+        dto.setCurrentStreak(attendanceCalendar.getCurrentStreak(userId, today));
+        dto.setLongestStreak(attendanceCalendar.getLongestStreak(userId, attendanceCalendar.getEarliestLoadedYear(), today.getYear()));
+        return dto;
+    }
+
+    public int countDaysPresent(Integer userId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Start date must not be after end date.");
+        }
+        return attendanceCalendar.countDaysPresent(userId, from, to);
+    }
+
     public Map<LocalDate, Long> getDailyAttendanceCount(LocalDate startDate, LocalDate endDate) {
-        List<Attendance> attendanceList = attendanceRepository.findAll(); // cite: 235
-        return attendanceList.stream()
-                .filter(a -> !a.getCheckInTime().toLocalDate().isBefore(startDate) && // cite: 235
-                             !a.getCheckInTime().toLocalDate().isAfter(endDate)) // cite: 235
-                .collect(Collectors.groupingBy( // cite: 235
-                        a -> a.getCheckInTime().toLocalDate(), // cite: 236
-                        Collectors.counting() // cite: 236
-                ));
+        // Grouped in the database over the requested range only, instead of loading the whole table
+        Map<LocalDate, Long> dailyCounts = new TreeMap<>();
+        for (AttendanceRepository.DailyCount row : attendanceRepository.countDailyAttendance(startDate, endDate)) {
+            dailyCounts.put(row.getAttendanceDate(), row.getAttendanceCount());
+        }
+        return dailyCounts;
     }
 
     public Page<AttendanceResponseDTO> getAllAttendanceRecords(Pageable pageable) {
-        Page<Attendance> attendancePage = attendanceRepository.findAll(pageable); // cite: 238
-        return attendancePage.map(this::convertToDto); // cite: 238
+        // Pages over both the hot table and the archive; only check-in time ordering is supported
+        Sort.Order checkInOrder = pageable.getSort().getOrderFor("checkInTime");
+        boolean newestFirst = checkInOrder == null || checkInOrder.isDescending();
+        List<AttendanceResponseDTO> content =
+                attendanceHistoryRepository.findPage(newestFirst, pageable.getOffset(), pageable.getPageSize()); // cite: 238
+        return new PageImpl<>(content, pageable, attendanceHistoryRepository.count()); // cite: 238
     }
 
-    public void deleteAttendanceRecord(Integer attendanceId) {
-        if (!attendanceRepository.existsById(attendanceId)) { // cite: 239
-            throw new RuntimeException("Attendance record not found with ID: " + attendanceId); // cite: 239
+    /**
+     * Seek-paginated alternative to getAllAttendanceRecords: one slice ordered by (check-in time, user ID),
+     * with no COUNT over both tables and no OFFSET, so the thousandth slice costs the same as the first.
+     */
+    public KeysetPageDTO<AttendanceResponseDTO> getAttendanceSlice(boolean newestFirst, String cursor, int size) {
+        LocalDateTime afterCheckIn = null;
+        Integer afterUserId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            try {
+                afterCheckIn = LocalDateTime.parse(position.getSortKey());
+                afterUserId = Integer.parseInt(position.getId());
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid pagination cursor.");
+            }
         }
-        attendanceRepository.deleteById(attendanceId); // cite: 239
+        List<AttendanceResponseDTO> rows = attendanceHistoryRepository.findSlice(newestFirst, afterCheckIn, afterUserId, size + 1);
+        return KeysetPageDTO.fromRows(rows, size, last -> KeysetCursor.encode(last.getCheckInTime(), last.getUserId()));
     }
 
     @Transactional
-    public int checkOutAllUsers() {
-        LocalDate today = LocalDate.now(); // cite: 240
-        List<Attendance> activeAttendances = attendanceRepository.findByCheckOutTimeIsNullAndAttendanceDate(today); // cite: 240
+    public void deleteAttendanceRecord(Integer attendanceId) {
+        Attendance attendance = attendanceRepository.findById(attendanceId) // cite: 239
+                .orElseThrow(() -> new RuntimeException("Attendance record not found with ID: " + attendanceId)); // cite: 239
+        Integer userId = attendance.getUser().getUserId();
+        LocalDate attendanceDate = attendance.getAttendanceDate();
+        attendanceRepository.delete(attendance); // cite: 239
+        afterCommit(() -> {
+            presenceIndex.remove(userId, attendanceDate);
+            attendanceCalendar.markAbsent(userId, attendanceDate);
+            cohortRetentionService.removeVisit(userId, attendanceDate);
+            occupancyService.resync();
+        });
+    }
 
-        int checkedOutCount = 0;
+    /**
+     * Closes every open session for today with one set-based UPDATE. The membership and
+     * 10-minute minimum-stay rules are part of the WHERE clause; sessions that fail them are
+     * counted by reason (in one aggregate query) and left open.
+     */
+    @Transactional
+    public CheckoutAllResultDTO checkOutAllUsers() {
+        LocalDate today = LocalDate.now(); // cite: 240
         LocalDateTime now = LocalDateTime.now(); // cite: 241
-        for (Attendance attendance : activeAttendances) { // cite: 241
-            // NEW VALIDATION: Ensure user is still "Active" before checking them out
-            if (!"Active".equalsIgnoreCase(attendance.getUser().getMembershipStatus()) &&
-                (attendance.getUser().getCurrentPlanEndDate() == null || attendance.getUser().getCurrentPlanEndDate().isBefore(LocalDate.now()))) {
-                System.out.println("Skipping check-out for non-active user: " + attendance.getUser().getName() + " (ID: " + attendance.getUser().getUserId() + "). Status: " + attendance.getUser().getMembershipStatus() + ".");
-                continue; // Skip inactive/expired users
-            }
+        LocalDateTime latestEligibleCheckIn = now.minusMinutes(MINIMUM_STAY_MINUTES);
 
+        AttendanceRepository.CheckoutSkipCounts skipped =
+                attendanceRepository.countOpenSessionsSkippedAtCheckout(today, latestEligibleCheckIn);
+        int checkedOutCount = attendanceRepository.closeEligibleOpenSessions(today, now, latestEligibleCheckIn);
 
-            if (attendance.getCheckInTime() != null) { // cite: 241
-                Duration durationSinceCheckIn = Duration.between(attendance.getCheckInTime(), now); // cite: 242
-                if (durationSinceCheckIn.toMinutes() < 10) { // cite: 242
-                    System.out.println("Skipping check-out for user " + attendance.getUser().getUserId() + // cite: 242
-                                       " (less than 10 minutes stay: " + durationSinceCheckIn.toMinutes() + " min)."); // cite: 243
-                    continue; // cite: 243
-                }
-            } else {
-                System.out.println("Skipping check-out for user " + attendance.getUser().getUserId() + " (missing check-in time)."); // cite: 244
-                continue; // cite: 244
-            }
+        Map<String, Long> skippedByReason = new LinkedHashMap<>();
+        skippedByReason.put("membershipNotActive", skipped.getMembershipNotActive());
+        skippedByReason.put("minimumStayNotReached", skipped.getMinimumStayNotReached());
 
-            if (now.isAfter(attendance.getCheckInTime())) { // cite: 244
-                attendance.setCheckOutTime(now); // cite: 245
-                Duration duration = Duration.between(attendance.getCheckInTime(), now); // cite: 245
-                attendance.setTimeSpentMinutes(duration.toMinutes()); // cite: 245
-                attendanceRepository.save(attendance); // cite: 245
-                checkedOutCount++; // cite: 245
-            }
-        }
-        return checkedOutCount; // cite: 246
+        // A bulk UPDATE bypasses the per-member bookkeeping, so reload today's sessions once it is committed
+        afterCommit(() -> {
+            presenceIndex.rebuild(today);
+            occupancyService.resync();
+        });
+
+        CheckoutAllResultDTO result = new CheckoutAllResultDTO();
+        result.setCheckedOutCount(checkedOutCount);
+        result.setSkippedByReason(skippedByReason);
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,21 @@
 package com.gym.gymmanagementsystem.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.util.List; // Import List
-import java.util.Map;  // Import Map
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
 @Service
 public class AttendanceSummaryService {
 
+    private static final Logger log = LoggerFactory.getLogger(AttendanceSummaryService.class);
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -20,76 +24,68 @@ public class AttendanceSummaryService {
     }
 
     /**
-     * Checks if there are any new or updated completed attendance records in the
-     * temporary 'attendance' table that would result in changes to 'daily_attendance'.
-     * This considers records that are either not yet in 'daily_attendance' or
-     * records where 'check_out_time' or 'time_spent_minutes' have changed in 'attendance'.
+     * Checks if any session in the temporary 'attendance' table has been completed but not yet
+     * summarized. This is an index probe on summarized_at IS NULL, so it costs the same no matter
+     * how much history the tables hold.
      *
      * @return true if there are records to process, false otherwise.
      */
     public boolean hasPendingAttendanceRecordsForSummary() {
-        // This query identifies records in 'attendance' that are completed
-        // AND either not in 'daily_attendance' yet (based on user_id, attendance_date)
-        // OR have different check_out/time_spent_minutes values compared to what's in daily_attendance.
         String checkPendingSql = """
             SELECT EXISTS (
                 SELECT 1
                 FROM attendance att
-                WHERE att.check_out_time IS NOT NULL AND att.time_spent_minutes IS NOT NULL
-                AND NOT EXISTS (
-                    SELECT 1
-                    FROM daily_attendance da
-                    WHERE da.user_id = att.user_id
-                      AND da.attendance_date = att.attendance_date
-                      AND da.check_in = att.check_in_time -- Assuming check_in is stable for matching
-                      AND da.check_out = att.check_out_time
-                      AND da.time_spent_minutes = att.time_spent_minutes
-                )
+                WHERE att.summarized_at IS NULL
+                  AND att.time_spent_minutes IS NOT NULL
             )
             """;
-        // Execute the query and return true if any pending records exist.
         return Boolean.TRUE.equals(jdbcTemplate.queryForObject(checkPendingSql, Boolean.class));
     }
 
-
     /**
-     * Aggregates attendance data from the temporary 'attendance' table
-     * into the persistent 'daily_attendance', 'monthly_attendance_summary', and 'yearly_attendance_summary' tables.
-     * This method is designed to be idempotent (can be run multiple times safely).
-     * It relies on ON DUPLICATE KEY UPDATE for MySQL to either insert new summaries
-     * or update existing ones.
+     * Incrementally aggregates attendance data from the temporary 'attendance' table into the persistent
+     * 'daily_attendance', 'monthly_attendance_summary' and 'yearly_attendance_summary' tables.
+     * Each run first claims every completed session not summarized yet by stamping its summarized_at,
+     * then copies only the claimed sessions and regroups only the user/month and user/year keys they
+     * belong to. A session is pending because of when it was written, not because of its check-out time,
+     * so back-dated sessions (batch taps, journal replay) are picked up like any other; sessions
+     * completed while a run is in progress are left for the next one.
+     * Like before, the statements are idempotent (ON DUPLICATE KEY UPDATE), so re-running is safe.
      */
     @Transactional
     public void generateAttendanceSummaries() {
-        // --- 0. Copy completed daily attendance from TEMPORARY 'attendance' to PERSISTENT 'daily_attendance' ---
-        // This query inserts completed records from the temporary 'attendance' table
-        // into the persistent 'daily_attendance' table.
-        // It relies on the UNIQUE constraint on (user_id, attendance_date) in daily_attendance.
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        int claimed = jdbcTemplate.update(
+                "UPDATE attendance SET summarized_at = ? WHERE summarized_at IS NULL AND time_spent_minutes IS NOT NULL",
+                runStartedAt);
+        if (claimed == 0) {
+            log.info("No completed attendance records to summarize.");
+            return;
+        }
+
+        // --- 0. Copy the claimed sessions into PERSISTENT 'daily_attendance' ---
         String copyToPersistentDailySql = """
             INSERT INTO daily_attendance (user_id, check_in, check_out, time_spent_minutes, attendance_date)
             SELECT
                 att.user_id,
-                att.check_in_time,      -- Map from 'check_in_time' in temporary 'attendance' table
-                att.check_out_time,     -- Map from 'check_out_time' in temporary 'attendance' table
+                att.check_in_time,
+                att.check_out_time,
                 att.time_spent_minutes,
                 att.attendance_date
             FROM
-                attendance att           -- Source is the TEMPORARY 'attendance' table
+                attendance att
             WHERE
-                att.check_out_time IS NOT NULL     -- Only include completed sessions
-                AND att.time_spent_minutes IS NOT NULL
+                att.summarized_at = ?
             ON DUPLICATE KEY UPDATE
-                -- Update existing records if the same user/date combination already exists
-                -- This ensures idempotency for daily_attendance itself
                 check_in = VALUES(check_in),
                 check_out = VALUES(check_out),
                 time_spent_minutes = VALUES(time_spent_minutes);
             """;
-        jdbcTemplate.update(copyToPersistentDailySql);
-        System.out.println("Completed attendance records copied to persistent daily_attendance successfully.");
+        int copied = jdbcTemplate.update(copyToPersistentDailySql, runStartedAt);
+        log.info("Copied {} completed attendance records to daily_attendance.", copied);
 
-        // --- 1. Aggregate Persistent Daily Attendance into Monthly Summary ---
-        // Now, source for monthly summary is the PERSISTENT 'daily_attendance' table
+        // --- 1. Regroup only the user/month keys touched by those sessions ---
+        // The join range-scans daily_attendance on its (user_id, attendance_date) key for each changed month.
         String monthlyAggregationSql = """
             INSERT INTO monthly_attendance_summary (user_id, year, month, total_present_days, total_minutes_spent)
             SELECT
@@ -99,9 +95,19 @@ public class AttendanceSummaryService {
                 COUNT(DISTINCT da.attendance_date),
                 SUM(da.time_spent_minutes)
             FROM
-                daily_attendance da -- Source is PERSISTENT 'daily_attendance' table
+                daily_attendance da
+            JOIN (
+                SELECT DISTINCT
+                    att.user_id,
+                    DATE_SUB(att.attendance_date, INTERVAL DAYOFMONTH(att.attendance_date) - 1 DAY) AS month_start
+                FROM attendance att
+                WHERE att.summarized_at = ?
+            ) changed
+                ON da.user_id = changed.user_id
+               AND da.attendance_date >= changed.month_start
+               AND da.attendance_date < changed.month_start + INTERVAL 1 MONTH
             WHERE
-                da.check_out IS NOT NULL -- Always ensure completed sessions are summarized
+                da.check_out IS NOT NULL
                 AND da.time_spent_minutes IS NOT NULL
             GROUP BY
                 da.user_id,
@@ -111,10 +117,10 @@ public class AttendanceSummaryService {
                 total_present_days = VALUES(total_present_days),
                 total_minutes_spent = VALUES(total_minutes_spent);
             """;
-        jdbcTemplate.update(monthlyAggregationSql);
-        System.out.println("Monthly attendance summaries generated/updated successfully.");
+        jdbcTemplate.update(monthlyAggregationSql, runStartedAt);
+        log.info("Monthly attendance summaries generated/updated successfully.");
 
-        // --- 2. Aggregate Monthly Summary into Yearly Summary ---
+        // --- 2. Regroup only the user/year keys touched by those sessions ---
         String yearlyAggregationSql = """
             INSERT INTO yearly_attendance_summary (user_id, year, total_present_days, total_minutes_spent)
             SELECT
@@ -124,6 +130,13 @@ public class AttendanceSummaryService {
                 SUM(mas.total_minutes_spent)
             FROM
                 monthly_attendance_summary mas
+            JOIN (
+                SELECT DISTINCT att.user_id, YEAR(att.attendance_date) AS year
+                FROM attendance att
+                WHERE att.summarized_at = ?
+            ) changed
+                ON mas.user_id = changed.user_id
+               AND mas.year = changed.year
             GROUP BY
                 mas.user_id,
                 mas.year
@@ -131,7 +144,109 @@ public class AttendanceSummaryService {
                 total_present_days = VALUES(total_present_days),
                 total_minutes_spent = VALUES(total_minutes_spent);
             """;
-        jdbcTemplate.update(yearlyAggregationSql);
-        System.out.println("Yearly attendance summaries generated/updated successfully.");
+        jdbcTemplate.update(yearlyAggregationSql, runStartedAt);
+        log.info("Yearly attendance summaries generated/updated successfully.");
+    }
+
+    /**
+     * Regroups the monthly and yearly summaries of the user/month and user/year keys the given
+     * 'attendance' rows belong to. Used by the rollover job right after it has copied those rows
+     * into 'daily_attendance' and before it deletes them, so archiving never depends on the
+     * summary job having claimed them yet.
+     */
+    @Transactional
+    public void refreshSummariesForAttendance(List<Integer> attendanceIds) {
+        if (attendanceIds.isEmpty()) {
+            return;
+        }
+        String ids = String.join(", ", Collections.nCopies(attendanceIds.size(), "?"));
+        Object[] args = attendanceIds.toArray();
+
+        jdbcTemplate.update("""
+            INSERT INTO monthly_attendance_summary (user_id, year, month, total_present_days, total_minutes_spent)
+            SELECT da.user_id, YEAR(da.attendance_date), MONTH(da.attendance_date),
+                   COUNT(DISTINCT da.attendance_date), SUM(da.time_spent_minutes)
+            FROM daily_attendance da
+            JOIN (
+                SELECT DISTINCT
+                    att.user_id,
+                    DATE_SUB(att.attendance_date, INTERVAL DAYOFMONTH(att.attendance_date) - 1 DAY) AS month_start
+                FROM attendance att
+                WHERE att.attendance_id IN (%s)
+            ) changed
+                ON da.user_id = changed.user_id
+               AND da.attendance_date >= changed.month_start
+               AND da.attendance_date < changed.month_start + INTERVAL 1 MONTH
+            WHERE da.check_out IS NOT NULL AND da.time_spent_minutes IS NOT NULL
+            GROUP BY da.user_id, YEAR(da.attendance_date), MONTH(da.attendance_date)
+            ON DUPLICATE KEY UPDATE
+                total_present_days = VALUES(total_present_days),
+                total_minutes_spent = VALUES(total_minutes_spent);
+            """.formatted(ids), args);
+
+        jdbcTemplate.update("""
+            INSERT INTO yearly_attendance_summary (user_id, year, total_present_days, total_minutes_spent)
+            SELECT mas.user_id, mas.year, SUM(mas.total_present_days), SUM(mas.total_minutes_spent)
+            FROM monthly_attendance_summary mas
+            JOIN (
+                SELECT DISTINCT att.user_id, YEAR(att.attendance_date) AS year
+                FROM attendance att
+                WHERE att.attendance_id IN (%s)
+            ) changed
+                ON mas.user_id = changed.user_id
+               AND mas.year = changed.year
+            GROUP BY mas.user_id, mas.year
+            ON DUPLICATE KEY UPDATE
+                total_present_days = VALUES(total_present_days),
+                total_minutes_spent = VALUES(total_minutes_spent);
+            """.formatted(ids), args);
+    }
+
+    /**
+     * Full, non-incremental rebuild: re-copies every completed session and regroups every
+     * monthly and yearly summary. Only needed to repair the summary tables (for example after
+     * rows were edited by hand); it also marks every completed session as summarized.
+     */
+    @Transactional
+    public void rebuildAllAttendanceSummaries() {
+        LocalDateTime rebuiltUpTo = LocalDateTime.now();
+        jdbcTemplate.update(
+                "UPDATE attendance SET summarized_at = ? WHERE summarized_at IS NULL AND time_spent_minutes IS NOT NULL",
+                rebuiltUpTo);
+
+        jdbcTemplate.update("""
+            INSERT INTO daily_attendance (user_id, check_in, check_out, time_spent_minutes, attendance_date)
+            SELECT att.user_id, att.check_in_time, att.check_out_time, att.time_spent_minutes, att.attendance_date
+            FROM attendance att
+            WHERE att.check_out_time IS NOT NULL AND att.time_spent_minutes IS NOT NULL
+            ON DUPLICATE KEY UPDATE
+                check_in = VALUES(check_in),
+                check_out = VALUES(check_out),
+                time_spent_minutes = VALUES(time_spent_minutes);
+            """);
+
+        jdbcTemplate.update("""
+            INSERT INTO monthly_attendance_summary (user_id, year, month, total_present_days, total_minutes_spent)
+            SELECT da.user_id, YEAR(da.attendance_date), MONTH(da.attendance_date),
+                   COUNT(DISTINCT da.attendance_date), SUM(da.time_spent_minutes)
+            FROM daily_attendance da
+            WHERE da.check_out IS NOT NULL AND da.time_spent_minutes IS NOT NULL
+            GROUP BY da.user_id, YEAR(da.attendance_date), MONTH(da.attendance_date)
+            ON DUPLICATE KEY UPDATE
+                total_present_days = VALUES(total_present_days),
+                total_minutes_spent = VALUES(total_minutes_spent);
+            """);
+
+        jdbcTemplate.update("""
+            INSERT INTO yearly_attendance_summary (user_id, year, total_present_days, total_minutes_spent)
+            SELECT mas.user_id, mas.year, SUM(mas.total_present_days), SUM(mas.total_minutes_spent)
+            FROM monthly_attendance_summary mas
+            GROUP BY mas.user_id, mas.year
+            ON DUPLICATE KEY UPDATE
+                total_present_days = VALUES(total_present_days),
+                total_minutes_spent = VALUES(total_minutes_spent);
+            """);
+
+        log.info("All attendance summaries rebuilt up to {}.", rebuiltUpTo);
     }
-}
\ No newline at end of file
+}
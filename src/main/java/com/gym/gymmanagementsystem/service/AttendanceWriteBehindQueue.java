@@ -0,0 +1,373 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.WriteBehindMetricsDTO;
+import com.gym.gymmanagementsystem.repository.AttendanceJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind path for turnstile taps (application.attendance.write-behind.enabled).
+ * AttendanceService makes the check-in/check-out decision against the presence index, acknowledges
+ * the tap and hands the resulting write to this bounded queue; a single background thread drains
+ * it in batches and writes each batch with JDBC batching in one transaction.
+ *
+ * When the queue is full, producers wait up to offer-timeout-ms and are then rejected, so a slow
+ * database pushes back on the turnstiles instead of growing memory. On shutdown the queue stops
+ * accepting taps and the writer flushes everything still queued before the context closes.
+ *
+ * A batch that keeps failing is retried max-retries times with a doubling delay. After that its taps
+ * are written one by one, and those that still fail go to the {@link AttendanceJournal} (or are
+ * logged and dropped when the journal is off), so one bad row cannot stall every write behind it.
+ */
+@Component
+public class AttendanceWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceWriteBehindQueue.class);
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    /**
+     * One acknowledged tap. checkOutTime is null for a check-in.
+     */
+    public record AttendanceWrite(Integer userId, LocalDate attendanceDate,
+                                  LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+        public boolean isCheckIn() {
+            return checkOutTime == null;
+        }
+    }
+
+    private record SessionKey(Integer userId, LocalDate attendanceDate) {}
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+    @Autowired
+    private AttendancePresenceIndex presenceIndex;
+    @Autowired
+    private MemberLockStripes memberLocks;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AttendanceJournal journal;
+
+    @Value("${application.attendance.write-behind.enabled:false}")
+    private boolean enabled;
+    @Value("${application.attendance.write-behind.capacity:10000}")
+    private int capacity;
+    @Value("${application.attendance.write-behind.batch-size:500}")
+    private int batchSize;
+    @Value("${application.attendance.write-behind.offer-timeout-ms:200}")
+    private long offerTimeoutMillis;
+    @Value("${application.attendance.write-behind.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+    @Value("${application.attendance.write-behind.max-retries:5}")
+    private int maxRetries;
+    @Value("${application.attendance.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMillis;
+
+    private BlockingQueue<AttendanceWrite> queue;
+    // Latest acknowledged write per session that is not in the database yet (queued or in a batch being flushed)
+    private final Map<SessionKey, AttendanceWrite> pending = new ConcurrentHashMap<>();
+    private Thread writer;
+    private volatile boolean accepting;
+    // Producers hold the read side from the accepting check through the offer; shutdown closes the gate with the write side
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong journaled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile int lastBatchSize;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        accepting = true;
+        writer = new Thread(this::drainLoop, "attendance-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an acknowledged tap, waiting up to offer-timeout-ms for room.
+     *
+     * @throws RuntimeException if the queue stays full or the application is shutting down.
+     */
+    public void enqueue(AttendanceWrite write) {
+        gate.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new RuntimeException("Attendance recording is shutting down. Please try again.");
+            }
+            offer(write);
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    private void offer(AttendanceWrite write) {
+        // Registered before the offer so the writer can never flush it first; taps of one member are serialized by the caller
+        SessionKey key = new SessionKey(write.userId(), write.attendanceDate());
+        AttendanceWrite previous = pending.put(key, write);
+        boolean queued = false;
+        try {
+            queued = queue.offer(write, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing attendance.");
+        } finally {
+            if (!queued) {
+                if (previous != null) {
+                    pending.replace(key, write, previous);
+                } else {
+                    pending.remove(key, write);
+                }
+            }
+        }
+        if (!queued) {
+            rejected.incrementAndGet();
+            throw new RuntimeException("Attendance queue is full. Please try again.");
+        }
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * The day's sessions whose latest tap is acknowledged but not written yet, one per member,
+     * for rebuilding the presence index from the table without losing them.
+     */
+    public List<AttendanceWrite> pendingWrites(LocalDate attendanceDate) {
+        return pending.values().stream()
+                .filter(write -> write.attendanceDate().equals(attendanceDate))
+                .toList();
+    }
+
+    private void drainLoop() {
+        List<AttendanceWrite> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                AttendanceWrite first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flushWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                divert(batch); // Interrupted on a shutdown timeout; drainOnShutdown takes what is still queued
+                break;
+            }
+        }
+    }
+
+    // A failed batch is retried with a doubling delay; once the retries run out, each tap gets one more try on its own
+    void flushWithRetry(List<AttendanceWrite> batch) throws InterruptedException {
+        long delay = retryDelayMillis;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                if (attempt >= maxRetries) {
+                    log.error("Attendance write-behind flush of {} taps failed {} times; writing them one by one",
+                            batch.size(), attempt + 1, e);
+                    break;
+                }
+                log.warn("Attendance write-behind flush of {} taps failed, retrying in {} ms: {}", batch.size(), delay, e.getMessage());
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                flush(List.of(batch.get(i)));
+            } catch (RuntimeException e) {
+                if (isConnectionFailure(e)) {
+                    // The database is unreachable rather than this row being bad; don't wait on it once per tap
+                    divert(batch.subList(i, batch.size()));
+                    return;
+                }
+                log.error("Attendance write-behind could not write the tap of user {} on {}", batch.get(i).userId(),
+                        batch.get(i).attendanceDate(), e);
+                divert(List.of(batch.get(i)));
+            }
+        }
+    }
+
+    private static boolean isConnectionFailure(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException || e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessResourceException || e instanceof RecoverableDataAccessException;
+    }
+
+    // Taps that cannot be written go to the journal, which replays them through the batch path later
+    private void divert(List<AttendanceWrite> writes) {
+        for (AttendanceWrite write : writes) {
+            try {
+                if (!journal.isEnabled()) {
+                    throw new IllegalStateException("the attendance journal is disabled");
+                }
+                journal.append(write.userId(), write.checkInTime());
+                if (!write.isCheckIn()) {
+                    journal.append(write.userId(), write.checkOutTime());
+                }
+                journaled.incrementAndGet();
+            } catch (RuntimeException e) {
+                dropped.incrementAndGet();
+                log.error("Dropping write-behind tap of user {} at {}: {}", write.userId(),
+                        write.isCheckIn() ? write.checkInTime() : write.checkOutTime(), e.getMessage());
+            }
+            pending.remove(new SessionKey(write.userId(), write.attendanceDate()), write);
+        }
+    }
+
+    /**
+     * Writes one batch: a check-in and check-out of the same session in the batch collapse into a
+     * single completed insert, other check-outs become keyed updates. If the batch insert hits the
+     * unique key (the row already exists), rows are retried one by one and the duplicates skipped.
+     */
+    void flush(List<AttendanceWrite> batch) {
+        long startedAt = System.nanoTime();
+        Map<SessionKey, AttendanceWrite> inserts = new LinkedHashMap<>();
+        List<AttendanceJdbcRepository.SessionWrite> checkOuts = new ArrayList<>();
+        for (AttendanceWrite write : batch) {
+            SessionKey key = new SessionKey(write.userId(), write.attendanceDate());
+            if (write.isCheckIn()) {
+                inserts.put(key, write);
+            } else if (inserts.containsKey(key)) {
+                inserts.put(key, write);
+            } else {
+                checkOuts.add(toSessionWrite(write));
+            }
+        }
+        List<AttendanceJdbcRepository.SessionWrite> rows = inserts.values().stream()
+                .map(AttendanceWriteBehindQueue::toSessionWrite)
+                .toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                attendanceJdbcRepository.insertSessions(rows);
+                attendanceJdbcRepository.closeSessionsByMemberAndDate(checkOuts);
+            });
+        } catch (DataIntegrityViolationException e) {
+            for (AttendanceJdbcRepository.SessionWrite row : rows) {
+                try {
+                    attendanceJdbcRepository.insertSessions(List.of(row));
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.warn("Skipping duplicate write-behind check-in for user {} on {}", row.getUserId(), row.getAttendanceDate());
+                }
+            }
+            attendanceJdbcRepository.closeSessionsByMemberAndDate(checkOuts);
+        }
+
+        List<Integer> userIds = rows.stream().map(AttendanceJdbcRepository.SessionWrite::getUserId).toList();
+        memberLocks.withLocks(userIds, () -> {
+            for (AttendanceJdbcRepository.SessionWrite row : rows) {
+                if (row.getAttendanceId() != null) {
+                    presenceIndex.assignAttendanceId(row.getUserId(), row.getAttendanceDate(), row.getAttendanceId());
+                }
+            }
+            return null;
+        });
+        // Only now is the table authoritative for these sessions; a later write to the same session stays pending
+        batch.forEach(write -> pending.remove(new SessionKey(write.userId(), write.attendanceDate()), write));
+
+        long elapsed = System.nanoTime() - startedAt;
+        flushed.addAndGet(batch.size());
+        flushCount.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        lastFlushNanos = elapsed;
+        lastBatchSize = batch.size();
+    }
+
+    private static AttendanceJdbcRepository.SessionWrite toSessionWrite(AttendanceWrite write) {
+        return new AttendanceJdbcRepository.SessionWrite(null, write.userId(), write.attendanceDate(),
+                write.checkInTime(), write.checkOutTime());
+    }
+
+    public WriteBehindMetricsDTO getMetrics() {
+        WriteBehindMetricsDTO metrics = new WriteBehindMetricsDTO();
+        metrics.setEnabled(enabled);
+        metrics.setQueueDepth(queue != null ? queue.size() : 0);
+        metrics.setCapacity(enabled ? capacity : 0);
+        metrics.setEnqueuedCount(enqueued.get());
+        metrics.setRejectedCount(rejected.get());
+        metrics.setFlushedCount(flushed.get());
+        metrics.setFailedFlushCount(failedFlushes.get());
+        metrics.setJournaledCount(journaled.get());
+        metrics.setDroppedCount(dropped.get());
+        metrics.setLastBatchSize(lastBatchSize);
+        long flushes = flushCount.get();
+        metrics.setLastFlushMillis(lastFlushNanos / 1_000_000.0);
+        metrics.setMaxFlushMillis(maxFlushNanos.get() / 1_000_000.0);
+        metrics.setAverageFlushMillis(flushes > 0 ? totalFlushNanos.get() / 1_000_000.0 / flushes : 0);
+        return metrics;
+    }
+
+    /**
+     * Stops accepting taps and waits for the writer to flush everything already queued. Closing the gate
+     * waits for producers that are mid-offer, so every acknowledged tap is in the queue before the writer
+     * can find it empty. Taps the writer did not get to in time go to the journal.
+     */
+    @PreDestroy
+    void drainOnShutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        gate.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            gate.writeLock().unlock();
+        }
+        writer.join(shutdownTimeoutMillis);
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(shutdownTimeoutMillis);
+        }
+        List<AttendanceWrite> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            log.warn("Attendance write-behind did not drain in time; journaling {} taps.", left.size());
+            divert(left);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.CohortRetentionDTO;
+import com.gym.gymmanagementsystem.dto.CohortRetentionRowDTO;
+import com.gym.gymmanagementsystem.repository.AttendanceHistoryRepository;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cohort retention: of the members who joined in month X, how many visited in month X+N.
+ *
+ * Attendance is held as one compressed (Roaring) bitmap of member IDs per day. A month's active
+ * members are the OR of its day bitmaps, and a cohort's retention for that month is the AND
+ * cardinality with the cohort's bitmap, so no attendance rows are joined against users. Month
+ * bitmaps for months that have ended are cached; a late write into such a month drops its entry.
+ */
+@Service
+public class CohortRetentionService {
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${application.attendance.calendar.backfill-years:3}")
+    private int backfillYears;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final Map<LocalDate, RoaringBitmap> days = new ConcurrentHashMap<>();
+    private final Map<YearMonth, RoaringBitmap> closedMonths = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        LocalDate from = LocalDate.now().withDayOfYear(1).minusYears(backfillYears - 1L);
+        attendanceHistoryRepository.streamMemberDays(from, fetchSize, this::recordVisit);
+    }
+
+    public void recordVisit(int userId, LocalDate date) {
+        RoaringBitmap day = days.computeIfAbsent(date, d -> new RoaringBitmap());
+        synchronized (day) {
+            day.add(userId);
+        }
+        closedMonths.remove(YearMonth.from(date));
+    }
+
+    public void removeVisit(int userId, LocalDate date) {
+        RoaringBitmap day = days.get(date);
+        if (day != null) {
+            synchronized (day) {
+                day.remove(userId);
+            }
+            closedMonths.remove(YearMonth.from(date));
+        }
+    }
+
+    /**
+     * Members with at least one visit in the month. Months before currentMonth are cached.
+     */
+    RoaringBitmap activeIn(YearMonth month, YearMonth currentMonth) {
+        RoaringBitmap cached = closedMonths.get(month);
+        if (cached != null) {
+            return cached;
+        }
+        RoaringBitmap active = new RoaringBitmap();
+        for (LocalDate day = month.atDay(1); !day.isAfter(month.atEndOfMonth()); day = day.plusDays(1)) {
+            RoaringBitmap visits = days.get(day);
+            if (visits != null) {
+                synchronized (visits) {
+                    active.or(visits);
+                }
+            }
+        }
+        active.runOptimize();
+        if (month.isBefore(currentMonth)) {
+            closedMonths.put(month, active);
+        }
+        return active;
+    }
+
+    /**
+     * Drops a deleted member from every day bitmap.
+     */
+    public void removeMember(int userId) {
+        days.values().forEach(day -> {
+            synchronized (day) {
+                day.remove(userId);
+            }
+        });
+        closedMonths.clear();
+    }
+
+    public CohortRetentionDTO getRetention(YearMonth fromCohort, YearMonth toCohort, int months) {
+        if (fromCohort.isAfter(toCohort)) {
+            throw new RuntimeException("First cohort month must not be after the last.");
+        }
+        SortedMap<YearMonth, RoaringBitmap> cohorts = new TreeMap<>();
+        for (YearMonth month = fromCohort; !month.isAfter(toCohort); month = month.plusMonths(1)) {
+            cohorts.put(month, new RoaringBitmap());
+        }
+        userRepository.findJoiningDatesBetween(fromCohort.atDay(1), toCohort.atEndOfMonth())
+                .forEach(member -> cohorts.get(YearMonth.from(member.getJoiningDate())).add(member.getUserId()));
+
+        CohortRetentionDTO dto = new CohortRetentionDTO();
+        dto.setMonths(months);
+        dto.setCohorts(computeRetention(cohorts, months, YearMonth.now()));
+        return dto;
+    }
+
+    /**
+     * One row per cohort with the number (and share) of its members active 0..months months after joining.
+     * Offsets that lie in the future are left out.
+     */
+    List<CohortRetentionRowDTO> computeRetention(SortedMap<YearMonth, RoaringBitmap> cohorts, int months, YearMonth currentMonth) {
+        List<CohortRetentionRowDTO> rows = new ArrayList<>(cohorts.size());
+        cohorts.forEach((cohortMonth, members) -> {
+            int size = members.getCardinality();
+            int offsets = Math.max(0, Math.min(months, (int) cohortMonth.until(currentMonth, ChronoUnit.MONTHS)) + 1);
+            int[] retained = new int[offsets];
+            double[] rates = new double[offsets];
+            for (int offset = 0; offset < offsets; offset++) {
+                retained[offset] = RoaringBitmap.andCardinality(members, activeIn(cohortMonth.plusMonths(offset), currentMonth));
+                rates[offset] = size > 0 ? (double) retained[offset] / size : 0;
+            }
+            CohortRetentionRowDTO row = new CohortRetentionRowDTO();
+            row.setCohortMonth(cohortMonth.toString());
+            row.setCohortSize(size);
+            row.setRetainedCounts(retained);
+            row.setRetentionRates(rates);
+            rows.add(row);
+        });
+        return rows;
+    }
+}
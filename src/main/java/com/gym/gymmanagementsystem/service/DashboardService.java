@@ -1,8 +1,5 @@
 package com.gym.gymmanagementsystem.service;
 
-import com.gym.gymmanagementsystem.model.MembershipPlan;
-import com.gym.gymmanagementsystem.model.User;
-import com.gym.gymmanagementsystem.repository.MembershipPlanRepository;
 import com.gym.gymmanagementsystem.repository.TrainerRepository;
 import com.gym.gymmanagementsystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +10,12 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.gym.gymmanagementsystem.dto.ExpiringMembershipDTO;
+import com.gym.gymmanagementsystem.dto.UserResponseDTO;
 
 @Service
 public class DashboardService {
@@ -26,40 +26,30 @@ public class DashboardService {
     private TrainerRepository trainerRepository;
 
     @Autowired
-    private MembershipPlanRepository membershipPlanRepository;
+    private MembershipPlanCatalog planCatalog;
     @Autowired
     private AttendanceService attendanceService;
+    @Autowired
+    private MemberSearchIndex searchIndex;
 
+    // Statuses are kept current by MembershipStatusService; the end date check covers plans ending today before its nightly run
     public long getTotalActiveMembers() {
-        return userRepository.findAll().stream()
-                .filter(user -> "Active".equalsIgnoreCase(user.getMembershipStatus()) ||
-                                (user.getCurrentPlanEndDate() != null && user.getCurrentPlanEndDate().isAfter(LocalDate.now())))
-                .count();
+        return userRepository.countByMembershipStatusAndCurrentPlanEndDateAfter("Active", LocalDate.now());
     }
 
     public List<ExpiringMembershipDTO> getMembershipsExpiringSoon(int days) {
         LocalDate today = LocalDate.now();
         LocalDate cutoffDate = today.plusDays(days);
 
-        return userRepository.findAll().stream()
-                .filter(user -> user.getCurrentPlanId() != null && // Must have a plan
-                                user.getCurrentPlanEndDate() != null &&
-                                !user.getCurrentPlanEndDate().isBefore(today) && // End date is today or in future
-                                !user.getCurrentPlanEndDate().isAfter(cutoffDate)) // End date is within the cutoff period
+        // End date today or within the cutoff period
+        return userRepository.findPlansEndingBetween(today, cutoffDate).stream()
                 .map(user -> {
                     ExpiringMembershipDTO dto = new ExpiringMembershipDTO();
                     dto.setUserId(String.valueOf(user.getUserId()));
                     dto.setUserName(user.getName());
                     dto.setPlanId(user.getCurrentPlanId());
                     dto.setEndDate(user.getCurrentPlanEndDate());
-
-                    if (user.getCurrentPlanId() != null) {
-                        membershipPlanRepository.findById(user.getCurrentPlanId()).ifPresent(plan -> {
-                            dto.setPlanName(plan.getPlanName());
-                        });
-                    } else {
-                        dto.setPlanName("N/A");
-                    }
+                    planCatalog.findName(user.getCurrentPlanId()).ifPresent(dto::setPlanName);
                     return dto;
                 }).collect(Collectors.toList());
     }
@@ -69,18 +59,11 @@ public class DashboardService {
     }
 
     public Map<String, Long> getPlanDistribution() {
-        // Collect active plans from users
-        return userRepository.findAll().stream()
-                .filter(user -> user.getCurrentPlanId() != null &&
-                                user.getCurrentPlanStartDate() != null &&
-                                user.getCurrentPlanEndDate() != null &&
-                                user.getCurrentPlanEndDate().isAfter(LocalDate.now())) // Only count truly active plans
+        // Counted per plan in the database from truly active plans only; plans sharing a name are added up
+        return userRepository.countActiveMembersByPlan(LocalDate.now()).stream()
                 .collect(Collectors.groupingBy(
-                        user -> {
-                            MembershipPlan plan = membershipPlanRepository.findById(user.getCurrentPlanId()).orElse(null);
-                            return plan != null ? plan.getPlanName() : "Unknown Plan";
-                        },
-                        Collectors.counting()
+                        row -> planCatalog.findName(row.getPlanId()).orElse("Unknown Plan"),
+                        Collectors.summingLong(UserRepository.PlanMemberCount::getMembers)
                 ));
     }
 
@@ -88,19 +71,26 @@ public class DashboardService {
         return attendanceService.getDailyAttendanceCount(startDate, endDate);
     }
 
-    // MODIFIED: Use UserRepository's findBySearchQuery
-    public List<User> searchUsers(String query) {
-        // Create a Pageable object for the search query. For a search dropdown,
-        // we'll fetch a reasonable number of results (e.g., first 20).
+    // Member rows (DTOs, never entities) for the dashboard search dropdown: at most 20, best matches first
+    public List<UserResponseDTO> searchUsers(String query) {
         Pageable pageable = PageRequest.of(0, 20);
 
-        // Call the comprehensive search method from UserRepository.
-        // This method is designed to search by name, user ID (as string), or contact number.
-        // .getContent() is used because findBySearchQuery returns a Page, and we need the List of User objects.
-        return userRepository.findBySearchQuery(query, pageable).getContent();
+        // Served from the in-memory index once it is built, keeping its ranking (exact ID and name prefixes first)
+        if (searchIndex.isReady()) {
+            List<Integer> userIds = searchIndex.search(query, pageable.getPageSize());
+            if (userIds.isEmpty()) {
+                return List.of();
+            }
+            Map<Integer, UserResponseDTO> usersById = userRepository.findResponsesByUserIdIn(userIds, LocalDate.now(), pageable).stream()
+                    .collect(Collectors.toMap(UserResponseDTO::getUserId, Function.identity()));
+            return userIds.stream().map(usersById::get).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+
+        // Searches by name, user ID (as string) or contact number in the database
+        return userRepository.findResponsesBySearchQuery(query.trim(), LocalDate.now(), pageable).getContent();
     }
 
-    public List<User> filterUsersByStatus(String status) {
-        return userRepository.findByMembershipStatus(status);
+    public List<UserResponseDTO> filterUsersByStatus(String status) {
+        return userRepository.findResponsesByMembershipStatus(status, LocalDate.now());
     }
-}
\ No newline at end of file
+}
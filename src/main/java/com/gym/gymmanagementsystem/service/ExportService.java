@@ -0,0 +1,120 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gym.gymmanagementsystem.dto.AttendanceResponseDTO;
+import com.gym.gymmanagementsystem.dto.PaymentResponseDTO;
+import com.gym.gymmanagementsystem.repository.AttendanceHistoryRepository;
+import com.gym.gymmanagementsystem.repository.PaymentJdbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Writes attendance and payment data straight to an output stream as CSV or NDJSON.
+ * Rows are read from a forward-only cursor and written one at a time, so memory use stays
+ * constant whatever the size of the requested range.
+ */
+@Service
+public class ExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String ATTENDANCE_CSV_HEADER =
+            "attendanceId,userId,userName,attendanceDate,checkInTime,checkOutTime,timeSpentMinutes";
+    private static final String PAYMENTS_CSV_HEADER =
+            "paymentId,userId,userName,amount,dueAmount,paymentDate,paymentMethod,paymentMethodDetail," +
+            "membershipPlanId,membershipPlanName,transactionId,notes";
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+    @Autowired
+    private PaymentJdbcRepository paymentJdbcRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equalsIgnoreCase(format) || FORMAT_NDJSON.equalsIgnoreCase(format);
+    }
+
+    public void exportAttendance(LocalDate from, LocalDate to, Integer userId, String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        if (csv) {
+            writeLine(writer, ATTENDANCE_CSV_HEADER);
+        }
+        Consumer<AttendanceResponseDTO> rowWriter = csv
+                ? row -> writeLine(writer, csvRow(row.getAttendanceId(), row.getUserId(), row.getUserName(),
+                        row.getAttendanceDate(), row.getCheckInTime(), row.getCheckOutTime(), row.getTimeSpentMinutes()))
+                : row -> writeLine(writer, toJson(row));
+        attendanceHistoryRepository.streamHistory(from, to, userId, fetchSize, rowWriter);
+        writer.flush();
+    }
+
+    public void exportPayments(LocalDate from, LocalDate to, Integer userId, String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        if (csv) {
+            writeLine(writer, PAYMENTS_CSV_HEADER);
+        }
+        Consumer<PaymentResponseDTO> rowWriter = csv
+                ? row -> writeLine(writer, csvRow(row.getPaymentId(), row.getUserId(), row.getUserName(), row.getAmount(),
+                        row.getDueAmount(), row.getPaymentDate(), row.getPaymentMethod(), row.getPaymentMethodDetail(),
+                        row.getMembershipPlanId(), row.getMembershipPlanName(), row.getTransactionId(), row.getNotes()))
+                : row -> writeLine(writer, toJson(row));
+        paymentJdbcRepository.streamPayments(from, to, userId, fetchSize, rowWriter);
+        writer.flush();
+    }
+
+    private String toJson(Object row) {
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize export row: " + e.getMessage());
+        }
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks; nulls become empty fields
+    static String csvRow(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            // Usually the client went away; abort the cursor instead of reading the rest of the range
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.AttendanceHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Which days each member attended, as one 366-bit set (six longs) per member per year, with bit
+ * dayOfYear - 1 set when the member had a session that day. Calendars, streaks and day counts are
+ * answered from these bits without reading attendance rows.
+ *
+ * The sets are backfilled from both attendance tables on startup (the last backfill-years years)
+ * and kept current by AttendanceService as sessions are recorded or deleted. At roughly 100 bytes
+ * per member-year, 10,000 members over three years take about 3 MB.
+ */
+@Component
+public class MemberAttendanceCalendar {
+
+    static final int WORDS_PER_YEAR = 6; // 6 x 64 = 384 bits >= 366 days
+
+    private static final Logger log = LoggerFactory.getLogger(MemberAttendanceCalendar.class);
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+
+    @Value("${application.attendance.calendar.backfill-years:3}")
+    private int backfillYears;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final Map<Long, AtomicLongArray> years = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        LocalDate from = Year.now().minusYears(backfillYears - 1L).atDay(1);
+        attendanceHistoryRepository.streamMemberDays(from, fetchSize, this::markPresent);
+        log.info("Attendance calendar backfilled for {} member-years since {}.", years.size(), from);
+    }
+
+    private static long key(int userId, int year) {
+        return ((long) userId << 16) | year;
+    }
+
+    public void markPresent(int userId, LocalDate date) {
+        long mask = 1L << ((date.getDayOfYear() - 1) & 63);
+        int word = (date.getDayOfYear() - 1) >>> 6;
+        years.computeIfAbsent(key(userId, date.getYear()), k -> new AtomicLongArray(WORDS_PER_YEAR))
+                .getAndUpdate(word, bits -> bits | mask);
+    }
+
+    public void markAbsent(int userId, LocalDate date) {
+        AtomicLongArray bits = years.get(key(userId, date.getYear()));
+        if (bits != null) {
+            long mask = 1L << ((date.getDayOfYear() - 1) & 63);
+            bits.getAndUpdate((date.getDayOfYear() - 1) >>> 6, word -> word & ~mask);
+        }
+    }
+
+    /**
+     * Drops everything known about a member, e.g. when the member is deleted.
+     */
+    public void removeMember(int userId) {
+        years.keySet().removeIf(key -> (int) (key >>> 16) == userId);
+    }
+
+    // A copy of the member's bits for the year; all zeros if they never attended that year
+    long[] snapshot(int userId, int year) {
+        AtomicLongArray bits = years.get(key(userId, year));
+        long[] copy = new long[WORDS_PER_YEAR];
+        if (bits != null) {
+            for (int i = 0; i < WORDS_PER_YEAR; i++) {
+                copy[i] = bits.get(i);
+            }
+        }
+        return copy;
+    }
+
+    public List<LocalDate> getDatesPresent(int userId, int year) {
+        long[] bits = snapshot(userId, year);
+        List<LocalDate> dates = new ArrayList<>();
+        for (int word = 0; word < WORDS_PER_YEAR; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                int bit = Long.numberOfTrailingZeros(remaining);
+                dates.add(Year.of(year).atDay(word * 64 + bit + 1));
+                remaining &= remaining - 1; // Clear the lowest set bit
+            }
+        }
+        return dates;
+    }
+
+    public int countDaysPresent(int userId, LocalDate from, LocalDate to) {
+        int total = 0;
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            int first = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+            int last = year == to.getYear() ? to.getDayOfYear() - 1 : Year.of(year).length() - 1;
+            total += countRange(snapshot(userId, year), first, last);
+        }
+        return total;
+    }
+
+    /**
+     * Consecutive days attended ending today, or ending yesterday if the member has not come in yet today.
+     */
+    public int getCurrentStreak(int userId, LocalDate today) {
+        LocalDate day = today;
+        if (!isSet(snapshot(userId, day.getYear()), day.getDayOfYear() - 1)) {
+            day = day.minusDays(1);
+        }
+        int streak = 0;
+        while (true) {
+            int run = runEndingAt(snapshot(userId, day.getYear()), day.getDayOfYear() - 1);
+            streak += run;
+            if (run < day.getDayOfYear()) {
+                return streak; // The run stopped inside this year
+            }
+            day = LocalDate.of(day.getYear() - 1, 12, 31);
+        }
+    }
+
+    /**
+     * Longest run of consecutive days attended between the two years (inclusive); runs carry over New Year.
+     */
+    public int getLongestStreak(int userId, int fromYear, int toYear) {
+        int best = 0;
+        int run = 0;
+        for (int year = fromYear; year <= toYear; year++) {
+            long[] bits = snapshot(userId, year);
+            int days = Year.of(year).length();
+            for (int word = 0; word * 64 < days; word++) {
+                int limit = Math.min(64, days - word * 64);
+                int pos = 0;
+                while (pos < limit) {
+                    long shifted = bits[word] >>> pos;
+                    if ((shifted & 1) == 0) {
+                        run = 0;
+                        pos += shifted == 0 ? limit - pos : Math.min(Long.numberOfTrailingZeros(shifted), limit - pos);
+                    } else {
+                        int ones = Math.min(Long.numberOfTrailingZeros(~shifted), limit - pos);
+                        run += ones;
+                        best = Math.max(best, run);
+                        pos += ones;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public int getEarliestLoadedYear() {
+        return Year.now().getValue() - backfillYears + 1;
+    }
+
+    static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    // Number of set bits in [first, last]
+    static int countRange(long[] bits, int first, int last) {
+        if (last < first) {
+            return 0;
+        }
+        int count = 0;
+        for (int word = first >>> 6; word <= last >>> 6; word++) {
+            long mask = -1L;
+            if (word == first >>> 6) {
+                mask &= -1L << (first & 63);
+            }
+            if (word == last >>> 6) {
+                mask &= -1L >>> (63 - (last & 63));
+            }
+            count += Long.bitCount(bits[word] & mask);
+        }
+        return count;
+    }
+
+    // Number of consecutive set bits ending at index and running towards bit 0
+    static int runEndingAt(long[] bits, int index) {
+        int run = 0;
+        int word = index >>> 6;
+        int bit = index & 63;
+        while (word >= 0) {
+            long aligned = bits[word] << (63 - bit); // Bit of interest moved to the top
+            int ones = Long.numberOfLeadingZeros(~aligned);
+            if (ones < bit + 1) {
+                return run + ones;
+            }
+            run += bit + 1;
+            word--;
+            bit = 63;
+        }
+        return run;
+    }
+}
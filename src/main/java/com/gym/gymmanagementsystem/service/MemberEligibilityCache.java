@@ -0,0 +1,186 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.EligibilityCacheMetricsDTO;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of what a check-in needs to know about a member: name, membership status and
+ * plan end date. Misses are loaded with a narrow projection instead of the User entity.
+ *
+ * Anything that changes a member's plan state must call {@link #invalidate(Integer)}; when called
+ * inside a transaction the entry is dropped again after commit, so a tap racing the update cannot
+ * re-cache the old state.
+ */
+@Component
+public class MemberEligibilityCache {
+
+    /**
+     * A member's check-in eligibility. The rules here are the Java side of the eligibility predicate
+     * that AttendanceRepository.closeEligibleOpenSessions evaluates in SQL.
+     */
+    public record Eligibility(Integer userId, String name, String membershipStatus, LocalDate planEndDate) {
+
+        /**
+         * @throws RuntimeException with the reason shown at the turnstile when the member may not check in.
+         */
+        public void requireEligibleOn(LocalDate date) {
+            if (!"Active".equalsIgnoreCase(membershipStatus) && (planEndDate == null || planEndDate.isBefore(date))) {
+                throw new RuntimeException("User's membership is not active. Status: " + membershipStatus + ".");
+            }
+            if ("Expired".equalsIgnoreCase(membershipStatus)) {
+                throw new RuntimeException("User's membership has expired. Please renew the plan.");
+            }
+            if ("Inactive".equalsIgnoreCase(membershipStatus)) {
+                throw new RuntimeException("User's membership is inactive. Please assign a plan.");
+            }
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final int maxSize;
+    private final LinkedHashMap<Integer, Eligibility> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong invalidations = new AtomicLong(); // Also a generation for racing loads
+
+    public MemberEligibilityCache(@Value("${application.attendance.eligibility-cache.max-size:50000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) { // Access order = LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Eligibility> eldest) {
+                if (size() > MemberEligibilityCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @throws RuntimeException if the member does not exist.
+     */
+    public Eligibility get(Integer userId) {
+        Eligibility eligibility = getAll(List.of(userId)).get(userId);
+        if (eligibility == null) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+        return eligibility;
+    }
+
+    /**
+     * The cached entry for a member, or null on a miss; never reads the database.
+     */
+    public Eligibility getIfCached(Integer userId) {
+        synchronized (entries) {
+            Eligibility cached = entries.get(userId);
+            if (cached != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Looks up several members, loading all misses with one query. Unknown members are absent from the result.
+     */
+    public Map<Integer, Eligibility> getAll(Collection<Integer> userIds) {
+        Map<Integer, Eligibility> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        long generation;
+        synchronized (entries) {
+            generation = invalidations.get();
+            for (Integer userId : new LinkedHashSet<>(userIds)) {
+                Eligibility cached = entries.get(userId);
+                if (cached != null) {
+                    found.put(userId, cached);
+                    hits.increment();
+                } else {
+                    missing.add(userId);
+                    misses.increment();
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<Eligibility> loaded = userRepository.findEligibilityByUserIdIn(missing).stream()
+                .map(view -> new Eligibility(view.getUserId(), view.getName(), view.getMembershipStatus(), view.getCurrentPlanEndDate()))
+                .toList();
+        synchronized (entries) {
+            boolean unchanged = invalidations.get() == generation; // Don't cache what an update may have made stale
+            for (Eligibility eligibility : loaded) {
+                found.put(eligibility.userId(), eligibility);
+                if (unchanged) {
+                    entries.put(eligibility.userId(), eligibility);
+                }
+            }
+        }
+        return found;
+    }
+
+    public void invalidate(Integer userId) {
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    private void remove(Integer userId) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(userId);
+        }
+    }
+
+    public EligibilityCacheMetricsDTO getMetrics() {
+        EligibilityCacheMetricsDTO metrics = new EligibilityCacheMetricsDTO();
+        synchronized (entries) {
+            metrics.setSize(entries.size());
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        metrics.setMaxSize(maxSize);
+        metrics.setHits(hitCount);
+        metrics.setMisses(missCount);
+        metrics.setEvictions(evictions.sum());
+        metrics.setInvalidations(invalidations.get());
+        metrics.setHitRate(hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0);
+        return metrics;
+    }
+}
@@ -0,0 +1,127 @@
+package com.gym.gymmanagementsystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out unused six-digit member IDs (100000-999999) from blocks reserved in the database.
+ *
+ * A block is reserved by locking this ID space's row in 'id_allocation', reading which user IDs exist
+ * past its scan position, keeping the free ones and moving the position past everything scanned, all in
+ * a short transaction of its own. Other instances wait on the row lock and continue after this block, so
+ * blocks never overlap. Within a block IDs are taken with an atomic counter; only reserving the next
+ * block is serialized. The scan wraps around, so IDs freed by deleted members are reused on a later pass.
+ *
+ * IDs chosen by hand (registration with an explicit userId) must be reported with {@link #markTaken(int)}
+ * so an ID already sitting in this instance's block is skipped.
+ */
+@Component
+public class MemberIdAllocator {
+
+    static final int MIN_ID = 100000;
+    static final int MAX_ID = 999999;
+    private static final String ID_SPACE = "member_id";
+
+    private record Block(int[] ids, AtomicInteger next) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final int blockSize;
+
+    private final Set<Integer> takenByHand = ConcurrentHashMap.newKeySet();
+    private volatile Block current = new Block(new int[0], new AtomicInteger());
+
+    public MemberIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             @Value("${application.users.id-block-size:100}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @throws RuntimeException when every six-digit ID is in use.
+     */
+    public int nextId() {
+        while (true) {
+            Block block = current;
+            int index = block.next().getAndIncrement();
+            if (index < block.ids().length) {
+                int id = block.ids()[index];
+                if (takenByHand.isEmpty() || !takenByHand.remove(id)) {
+                    return id;
+                }
+                continue;
+            }
+            synchronized (this) {
+                if (current == block) {
+                    current = new Block(reserveBlock(), new AtomicInteger());
+                }
+            }
+        }
+    }
+
+    public void markTaken(int userId) {
+        takenByHand.add(userId);
+    }
+
+    private int[] reserveBlock() {
+        int[] ids = newTransaction.execute(status -> {
+            int position = lockPosition();
+            int[] free = new int[blockSize];
+            int found = 0;
+            int scanned = 0;
+            int window = blockSize * 2;
+            while (found < blockSize && scanned < MAX_ID - MIN_ID + 1) {
+                int to = Math.min(MAX_ID, position + window - 1);
+                Set<Integer> used = new HashSet<>(jdbcTemplate.queryForList(
+                        "SELECT user_id FROM users WHERE user_id BETWEEN ? AND ?", Integer.class, position, to));
+                for (int id = position; id <= to && found < blockSize; id++) {
+                    boolean handPicked = takenByHand.remove(id); // Possibly not committed yet, so not in 'used'
+                    if (!used.contains(id) && !handPicked) {
+                        free[found++] = id;
+                    }
+                    scanned++;
+                    position = id + 1;
+                }
+                if (position > MAX_ID) {
+                    position = MIN_ID;
+                }
+                window = Math.min(window * 2, 50_000); // Sparse free space (a nearly full range) needs wider scans
+            }
+            jdbcTemplate.update("UPDATE id_allocation SET next_value = ? WHERE name = ?", position, ID_SPACE);
+            return found == blockSize ? free : Arrays.copyOf(free, found);
+        });
+        if (ids == null || ids.length == 0) {
+            throw new RuntimeException("No free 6-digit User IDs are left.");
+        }
+        return ids;
+    }
+
+    // Locks this ID space's row for the rest of the transaction, creating it on first use
+    private int lockPosition() {
+        String select = "SELECT next_value FROM id_allocation WHERE name = ? FOR UPDATE";
+        List<Integer> position = jdbcTemplate.queryForList(select, Integer.class, ID_SPACE);
+        if (!position.isEmpty()) {
+            return position.get(0);
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO id_allocation (name, next_value) VALUES (?, ?)", ID_SPACE, MIN_ID);
+        } catch (DuplicateKeyException e) {
+            // Another instance created it first; its row lock is taken below
+        }
+        return jdbcTemplate.queryForObject(select, Integer.class, ID_SPACE);
+    }
+}
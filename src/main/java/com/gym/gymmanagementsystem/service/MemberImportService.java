@@ -0,0 +1,365 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.gym.gymmanagementsystem.dto.MemberImportErrorDTO;
+import com.gym.gymmanagementsystem.dto.MemberImportResultDTO;
+import com.gym.gymmanagementsystem.dto.UserDTO;
+import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.repository.UserJdbcRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk member import from a CSV or NDJSON upload. The upload is read one row at a time and written in
+ * batches, so memory use does not grow with the size of the file.
+ *
+ * Every row gets the checks POST /api/users applies: the UserDTO constraints, an existing plan and an
+ * unused user ID. Plans are resolved against one catalog snapshot taken when the import starts, and
+ * rows without a userId get one from MemberIdAllocator's reserved blocks. Valid rows are inserted with
+ * JDBC batches, each in a transaction of its own; when a batch fails, its rows are retried one at a time
+ * so that only the offending rows are rejected. A rejected row does not stop the import: it is reported
+ * with its line number and the reason.
+ *
+ * A CSV upload starts with a header naming UserDTO fields (userId, name, age, gender, contactNumber,
+ * joiningDate, selectedPlanId) in any order; an NDJSON upload has one UserDTO object per line.
+ */
+@Service
+public class MemberImportService {
+
+    // Upload formats importMembers can read
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final Logger log = LoggerFactory.getLogger(MemberImportService.class);
+
+    private record Row(long lineNumber, Integer requestedId, User user) {}
+
+    @Autowired
+    private UserJdbcRepository userJdbcRepository;
+    @Autowired
+    private MembershipPlanCatalog planCatalog;
+    @Autowired
+    private MemberIdAllocator memberIdAllocator;
+    @Autowired
+    private MemberEligibilityCache eligibilityCache;
+    @Autowired
+    private MemberSearchIndex searchIndex;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${application.users.import.batch-size:500}")
+    private int batchSize;
+    @Value("${application.users.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equalsIgnoreCase(format) || FORMAT_NDJSON.equalsIgnoreCase(format);
+    }
+
+    public MemberImportResultDTO importMembers(InputStream in, String format) throws IOException {
+        if (!isSupportedFormat(format)) {
+            throw new RuntimeException("Unsupported import format: " + format + ". Use 'csv' or 'ndjson'.");
+        }
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Import run = new Import(planCatalog.snapshot(), LocalDate.now());
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        run.flush();
+
+        MemberImportResultDTO result = run.result;
+        result.getErrors().sort(Comparator.comparingLong(MemberImportErrorDTO::getLineNumber));
+        result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        result.setRowsPerSecond(result.getTotalRows() * 1_000_000_000.0 / Math.max(1, System.nanoTime() - started));
+        log.info("Member import: {} of {} rows imported in {} ms.", result.getImportedCount(), result.getTotalRows(),
+                result.getElapsedMillis());
+        return result;
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        header.replaceAll(String::trim);
+        header.set(0, header.get(0).replace("\uFEFF", "")); // Byte order mark written by spreadsheet exports
+        List<String> record;
+        long lineNumber = csv.line;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                lineNumber = csv.line;
+                continue;
+            }
+            run.result.setTotalRows(run.result.getTotalRows() + 1);
+            if (record.size() != header.size()) {
+                run.reject(lineNumber, null, "Expected " + header.size() + " columns but found " + record.size() + ".");
+            } else {
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    String value = record.get(i).trim();
+                    if (!value.isEmpty()) {
+                        fields.put(header.get(i), value);
+                    }
+                }
+                try {
+                    run.accept(lineNumber, objectMapper.convertValue(fields, UserDTO.class));
+                } catch (IllegalArgumentException e) {
+                    run.reject(lineNumber, null, describe(e.getCause() != null ? e.getCause() : e));
+                }
+            }
+            lineNumber = csv.line;
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            run.result.setTotalRows(run.result.getTotalRows() + 1);
+            try {
+                run.accept(lineNumber, objectMapper.readValue(line, UserDTO.class));
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, null, describe(e));
+            }
+        }
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof InvalidFormatException invalid && !invalid.getPath().isEmpty()) {
+            return "Invalid value for '" + invalid.getPath().get(0).getFieldName() + "': " + invalid.getValue();
+        }
+        if (e instanceof MismatchedInputException mismatch && !mismatch.getPath().isEmpty()) {
+            return "Invalid value for '" + mismatch.getPath().get(0).getFieldName() + "'.";
+        }
+        if (e instanceof JsonProcessingException json) {
+            return "Malformed row: " + json.getOriginalMessage();
+        }
+        return "Malformed row: " + e.getMessage();
+    }
+
+    // State of one import: the rows waiting for the next batch and the report so far
+    private class Import {
+        private final Map<Integer, MembershipPlanCatalog.Plan> plans;
+        private final LocalDate today;
+        private final List<Row> pending = new ArrayList<>(batchSize);
+        private final Set<Integer> requestedIds = new HashSet<>();
+        private final MemberImportResultDTO result = new MemberImportResultDTO();
+
+        Import(Map<Integer, MembershipPlanCatalog.Plan> plans, LocalDate today) {
+            this.plans = plans;
+            this.today = today;
+            result.setErrors(new ArrayList<>());
+        }
+
+        void accept(long lineNumber, UserDTO userDTO) {
+            Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+            if (!violations.isEmpty()) {
+                reject(lineNumber, userDTO.getUserId(), violations.stream()
+                        .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            MembershipPlanCatalog.Plan plan = null;
+            if (userDTO.getSelectedPlanId() != null) {
+                plan = plans.get(userDTO.getSelectedPlanId());
+                if (plan == null) {
+                    reject(lineNumber, userDTO.getUserId(), "Membership Plan not found with id: " + userDTO.getSelectedPlanId());
+                    return;
+                }
+            }
+            if (userDTO.getUserId() != null && !requestedIds.add(userDTO.getUserId())) {
+                reject(lineNumber, userDTO.getUserId(), "User ID " + userDTO.getUserId() + " appears more than once in the file.");
+                return;
+            }
+
+            User user = new User();
+            if (userDTO.getUserId() == null) {
+                user.setUserId(memberIdAllocator.nextId());
+            } else {
+                user.setUserId(userDTO.getUserId());
+                memberIdAllocator.markTaken(userDTO.getUserId());
+            }
+            user.setName(userDTO.getName());
+            user.setAge(userDTO.getAge());
+            user.setGender(userDTO.getGender());
+            user.setContactNumber(userDTO.getContactNumber());
+            user.setJoiningDate(userDTO.getJoiningDate());
+            if (plan != null) {
+                user.setCurrentPlanId(plan.planId());
+                user.setCurrentPlanStartDate(user.getJoiningDate());
+                user.setCurrentPlanEndDate(user.getJoiningDate().plusMonths(plan.durationMonths()));
+            }
+            user.setMembershipStatus(UserService.membershipStatus(user.getCurrentPlanId(), user.getCurrentPlanEndDate(), today));
+            pending.add(new Row(lineNumber, userDTO.getUserId(), user));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long lineNumber, Integer userId, String message) {
+            result.setFailedCount(result.getFailedCount() + 1);
+            if (result.getErrors().size() < maxReportedErrors) {
+                result.getErrors().add(new MemberImportErrorDTO(lineNumber, userId, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Integer> requested = pending.stream().map(Row::requestedId).filter(Objects::nonNull).toList();
+            Set<Integer> existing = userJdbcRepository.findExistingIds(requested);
+            List<Row> rows = new ArrayList<>(pending.size());
+            for (Row row : pending) {
+                if (row.requestedId() != null && existing.contains(row.requestedId())) {
+                    reject(row.lineNumber(), row.requestedId(), "User ID " + row.requestedId() + " already exists.");
+                } else {
+                    rows.add(row);
+                }
+            }
+            pending.clear();
+
+            List<Row> inserted = rows;
+            try {
+                transactionTemplate.executeWithoutResult(status -> userJdbcRepository.insertUsers(users(rows)));
+            } catch (DataAccessException batchFailure) {
+                // Usually an ID taken since the check above; find the rows at fault one by one
+                inserted = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    if (insertOne(row)) {
+                        inserted.add(row);
+                    }
+                }
+            }
+            for (Row row : inserted) {
+                User user = row.user();
+                eligibilityCache.invalidate(user.getUserId()); // The ID may have been in use before
+                searchIndex.put(user.getUserId(), user.getName(), user.getContactNumber());
+            }
+            result.setImportedCount(result.getImportedCount() + inserted.size());
+        }
+
+        private boolean insertOne(Row row) {
+            while (true) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> userJdbcRepository.insertUsers(List.of(row.user())));
+                    return true;
+                } catch (DuplicateKeyException e) {
+                    if (row.requestedId() != null) {
+                        reject(row.lineNumber(), row.requestedId(), "User ID " + row.requestedId() + " already exists.");
+                        return false;
+                    }
+                    // An assigned ID taken by hand since its block was reserved: the row itself is fine
+                    row.user().setUserId(memberIdAllocator.nextId());
+                } catch (DataAccessException e) {
+                    reject(row.lineNumber(), row.requestedId(), "Could not be saved: " + e.getMostSpecificCause().getMessage());
+                    return false;
+                }
+            }
+        }
+
+        private List<User> users(List<Row> rows) {
+            return rows.stream().map(Row::user).toList();
+        }
+    }
+
+    /**
+     * Reads RFC 4180 records: fields may be quoted, a quote inside one is doubled, and quoted fields may
+     * span lines. Tracks the line the next record starts on.
+     */
+    static final class CsvReader {
+        private final BufferedReader in;
+        long line = 1;
+
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        // The fields of the next record, or null at the end of the input
+        List<String> next() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue; // The closing quote; look at what follows it unquoted
+                        }
+                        field.append('"');
+                    } else if (c == -1) {
+                        quoted = false; // Unterminated quote: take what was read
+                        continue;
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.gym.gymmanagementsystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed pool of locks that serializes work per member without keeping one lock per member.
+ * A member always maps to the same stripe, so two taps from the same member run one after the
+ * other, while members on different stripes proceed in parallel.
+ */
+@Component
+public class MemberLockStripes {
+
+    private final ReentrantLock[] stripes;
+
+    public MemberLockStripes(@Value("${application.attendance.lock-stripes:256}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Lock stripe count must be positive");
+        }
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    int stripeOf(Integer userId) {
+        return Math.floorMod(userId.hashCode(), stripes.length);
+    }
+
+    public <T> T withLock(Integer userId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(userId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action holding the stripes of all given members. Stripes are taken in ascending
+     * order so two callers with overlapping members cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Integer> userIds, Supplier<T> action) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Integer userId : userIds) {
+            indexes.add(stripeOf(userId));
+        }
+        for (Integer index : indexes) {
+            stripes[index].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (Integer index : indexes.descendingSet()) {
+                stripes[index].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.MemberSuggestionDTO;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory substring index over member name, user ID and contact number, matching what
+ * UserRepository.findBySearchQuery does with LIKE '%q%' but without scanning the users table.
+ *
+ * Every field's trigrams point to a (Roaring) bitmap of the member IDs containing them. A query of
+ * three or more characters intersects the bitmaps of its own trigrams and then checks the few
+ * candidates left; shorter queries scan the members in memory. Results are ranked: exact ID, name
+ * prefix, word prefix in the name, ID or contact prefix, then any other substring.
+ *
+ * The index is loaded from the database once the application is ready; until then {@link #isReady()}
+ * is false and callers fall back to the SQL search. UserService keeps it current, applying changes
+ * made inside a transaction only once it commits.
+ */
+@Component
+public class MemberSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberSearchIndex.class);
+
+    private record Member(int userId, String id, String name, String contact, String displayName, String displayContact) {}
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Integer, Member> members = new ConcurrentHashMap<>();
+    private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            members.clear();
+            postings.clear();
+            userRepository.findAllSearchFields()
+                    .forEach(view -> index(view.getUserId(), view.getName(), view.getContactNumber()));
+            postings.values().forEach(RoaringBitmap::runOptimize);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Member search index built for {} members ({} trigrams).", members.size(), postings.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(Integer userId, String name, String contactNumber) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(userId);
+                index(userId, name, contactNumber);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Integer userId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(userId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // Callers hold the write lock
+    private void index(Integer userId, String name, String contactNumber) {
+        Member member = new Member(userId, String.valueOf(userId), normalize(name), normalize(contactNumber),
+                name, contactNumber);
+        members.put(userId, member);
+        for (String field : new String[] {member.id(), member.name(), member.contact()}) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                postings.computeIfAbsent(trigram(field, i), k -> new RoaringBitmap()).add(userId);
+            }
+        }
+    }
+
+    private void unindex(Integer userId) {
+        Member member = members.remove(userId);
+        if (member == null) {
+            return;
+        }
+        for (String field : new String[] {member.id(), member.name(), member.contact()}) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                long key = trigram(field, i);
+                RoaringBitmap ids = postings.get(key);
+                if (ids != null) {
+                    ids.remove(userId);
+                    if (ids.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * IDs of all members whose name, ID or contact number contains the query, best matches first.
+     */
+    public List<Integer> search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    public List<Integer> search(String query, int limit) {
+        return rank(query, limit).stream().map(Member::userId).toList();
+    }
+
+    public List<MemberSuggestionDTO> suggest(String query, int limit) {
+        return rank(query, limit).stream().map(member -> {
+            MemberSuggestionDTO suggestion = new MemberSuggestionDTO();
+            suggestion.setUserId(member.userId());
+            suggestion.setName(member.displayName());
+            suggestion.setContactNumber(member.displayContact());
+            return suggestion;
+        }).toList();
+    }
+
+    private record Match(Member member, int score) {}
+
+    private static final Comparator<Match> BY_RANK = Comparator.comparingInt(Match::score)
+            .thenComparing(match -> match.member().name())
+            .thenComparingInt(match -> match.member().userId());
+
+    private List<Member> rank(String query, int limit) {
+        String q = normalize(query).trim();
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // Keeps only the best `limit` matches, worst on top, so broad queries don't sort every match
+        PriorityQueue<Match> best = new PriorityQueue<>(BY_RANK.reversed());
+        Consumer<Member> offer = member -> {
+            int score = member == null ? -1 : score(member, q);
+            if (score >= 0) {
+                Match match = new Match(member, score);
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (BY_RANK.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        };
+        lock.readLock().lock();
+        try {
+            if (q.length() < 3) {
+                members.values().forEach(offer);
+            } else {
+                RoaringBitmap candidates = candidates(q);
+                if (candidates != null) {
+                    // Trigrams may have come from different fields, so every candidate is checked
+                    candidates.forEach((int userId) -> offer.accept(members.get(userId)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(BY_RANK);
+        return ranked.stream().map(Match::member).toList();
+    }
+
+    // Members having every trigram of the query, intersecting the rarest first; null if some trigram is unknown
+    private RoaringBitmap candidates(String q) {
+        List<RoaringBitmap> lists = new ArrayList<>(q.length() - 2);
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            RoaringBitmap ids = postings.get(trigram(q, i));
+            if (ids == null) {
+                return null;
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap result = lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.and(lists.get(i));
+        }
+        return result;
+    }
+
+    // Lower is better; -1 when the member does not match at all
+    private static int score(Member member, String q) {
+        if (member.id().equals(q)) {
+            return 0;
+        }
+        if (member.name().startsWith(q)) {
+            return 1;
+        }
+        if (member.name().contains(" " + q)) {
+            return 2;
+        }
+        if (member.id().startsWith(q) || member.contact().startsWith(q)) {
+            return 3;
+        }
+        if (member.name().contains(q) || member.id().contains(q) || member.contact().contains(q)) {
+            return 4;
+        }
+        return -1;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String value, int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+
+    public int size() {
+        return members.size();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.model.MembershipPlan;
+import com.gym.gymmanagementsystem.repository.MembershipPlanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-mostly, in-memory copy of the membership plans, so per-row plan lookups (plan names on user
+ * and payment listings, durations and prices on writes) never go to the database.
+ *
+ * Readers see an immutable snapshot that is replaced wholesale: MembershipPlanService reloads it
+ * after every add, update and delete, and a periodic refresh picks up changes made by other
+ * instances. The first lookup loads it if nothing has yet.
+ */
+@Component
+public class MembershipPlanCatalog {
+
+    /**
+     * The plan fields other services need, detached from the entity so the snapshot cannot be modified.
+     */
+    public record Plan(Integer planId, String planName, Double price, Integer durationMonths) {}
+
+    @Autowired
+    private MembershipPlanRepository planRepository;
+
+    private volatile Map<Integer, Plan> plans;
+
+    @Scheduled(fixedDelayString = "${application.plans.catalog.refresh-ms:300000}")
+    public void reload() {
+        plans = planRepository.findAll().stream()
+                .map(MembershipPlanCatalog::of)
+                .collect(Collectors.toUnmodifiableMap(Plan::planId, Function.identity()));
+    }
+
+    /**
+     * The current snapshot as a whole, for callers resolving many plans in one go (bulk import).
+     */
+    public Map<Integer, Plan> snapshot() {
+        Map<Integer, Plan> current = plans;
+        if (current == null) {
+            synchronized (this) {
+                if (plans == null) {
+                    reload();
+                }
+                current = plans;
+            }
+        }
+        return current;
+    }
+
+    public Optional<Plan> find(Integer planId) {
+        return planId == null ? Optional.empty() : Optional.ofNullable(snapshot().get(planId));
+    }
+
+    public Optional<String> findName(Integer planId) {
+        return find(planId).map(Plan::planName);
+    }
+
+    static Plan of(MembershipPlan plan) {
+        return new Plan(plan.getPlanId(), plan.getPlanName(), plan.getPrice(), plan.getDurationMonths());
+    }
+}
@@ -17,12 +17,16 @@ public class MembershipPlanService {
 
     @Autowired
     private MembershipPlanRepository planRepository;
+    @Autowired
+    private MembershipPlanCatalog planCatalog;
 
     // REMOVED PlanAssignmentRepository injection
     // REMOVED UserRepository injection (if it's only used for PlanAssignment logic which is now gone)
 
     public MembershipPlan addPlan(MembershipPlan plan) {
-        return planRepository.save(plan);
+        MembershipPlan saved = planRepository.save(plan);
+        planCatalog.reload();
+        return saved;
     }
 
     public List<MembershipPlan> getAllPlans() {
@@ -43,11 +47,14 @@ public class MembershipPlanService {
         plan.setDurationMonths(planDTO.getDurationMonths());
         plan.setFeaturesList(planDTO.getFeaturesList());
 
-        return planRepository.save(plan);
+        MembershipPlan saved = planRepository.save(plan);
+        planCatalog.reload();
+        return saved;
     }
 
     public void deletePlan(Integer planId) {
         planRepository.deleteById(planId);
+        planCatalog.reload();
     }
 
     // REMOVED all methods related to PlanAssignment (e.g., assignPlanToUser, getPlanAssignmentsByUserId)
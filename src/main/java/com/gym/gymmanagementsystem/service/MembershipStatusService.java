@@ -0,0 +1,80 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps the stored 'users.membership_status' column in step with the plan end dates, so status filters
+ * and dashboard counts can query the column (indexed together with the end date) instead of re-deriving
+ * the status in Java from every member.
+ *
+ * Writes through UserService set the status as they go; what changes on its own is plans ending. Right
+ * after midnight one UPDATE expires the Active members whose plan ended, found through the index. A full
+ * recompute runs once on startup and on demand, for rows that got out of step some other way.
+ */
+@Service
+public class MembershipStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipStatusService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MemberEligibilityCache eligibilityCache;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Scheduled(cron = "${application.users.status.cron:0 1 0 * * *}")
+    public void scheduledExpiry() {
+        try {
+            int expired = expireEndedPlans();
+            log.info("Membership status job expired {} members.", expired);
+        } catch (Exception e) {
+            log.error("Membership status job failed", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeOnStartup() {
+        try {
+            int changed = recomputeAll();
+            log.info("Membership statuses recomputed on startup: {} changed.", changed);
+        } catch (Exception e) {
+            log.error("Membership status recompute failed", e);
+        }
+    }
+
+    /**
+     * @return the number of Active members whose plan has ended, now Expired.
+     */
+    public int expireEndedPlans() {
+        return changed(transactionTemplate.execute(status -> userRepository.expireEndedPlans(LocalDate.now())));
+    }
+
+    /**
+     * Sets every member's status from their plan dates.
+     *
+     * @return the number of members whose status changed.
+     */
+    public int recomputeAll() {
+        return changed(transactionTemplate.execute(status -> userRepository.recomputeAllStatuses(LocalDate.now())));
+    }
+
+    // Check-ins read the status from the cache; cleared once the new statuses are committed
+    private int changed(Integer rows) {
+        if (rows == null || rows == 0) {
+            return 0;
+        }
+        eligibilityCache.invalidateAll();
+        return rows;
+    }
+}
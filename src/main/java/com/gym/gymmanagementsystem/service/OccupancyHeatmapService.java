@@ -0,0 +1,119 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.OccupancyHeatmapDTO;
+import com.gym.gymmanagementsystem.repository.AttendanceHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Busiest times" heatmap: sessions present per hour and per quarter-hour of the week over a
+ * date range, built from the check-in/check-out intervals in 'attendance' and 'daily_attendance'.
+ *
+ * Work is done a week at a time in {@link WeeklyOccupancyGrid}s. Weeks that have fully ended
+ * no longer change, so their grids are cached and a repeated or overlapping range only reads
+ * the current week (and any week not seen before) from the database.
+ */
+@Service
+public class OccupancyHeatmapService {
+
+    @Autowired
+    private AttendanceHistoryRepository attendanceHistoryRepository;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final Map<LocalDate, WeeklyOccupancyGrid> closedWeeks = new ConcurrentHashMap<>();
+
+    public OccupancyHeatmapDTO getHeatmap(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new RuntimeException("Start date must not be after end date.");
+        }
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, WeeklyOccupancyGrid> grids = new HashMap<>();
+        List<LocalDate> missingWeeks = new ArrayList<>();
+        for (LocalDate week = weekStart(startDate); !week.isAfter(endDate); week = week.plusWeeks(1)) {
+            WeeklyOccupancyGrid cached = closedWeeks.get(week);
+            if (cached != null) {
+                grids.put(week, cached);
+            } else {
+                missingWeeks.add(week);
+            }
+        }
+        if (!missingWeeks.isEmpty()) {
+            Map<LocalDate, WeeklyOccupancyGrid> loaded = loadWeeks(missingWeeks);
+            loaded.forEach((week, grid) -> {
+                if (!week.plusWeeks(1).isAfter(today)) { // Sunday has passed
+                    closedWeeks.put(week, grid);
+                }
+            });
+            grids.putAll(loaded);
+        }
+
+        int[][] hourly = new int[WeeklyOccupancyGrid.DAYS][WeeklyOccupancyGrid.HOURS_PER_DAY];
+        int[][] quarterHourly = new int[WeeklyOccupancyGrid.DAYS][WeeklyOccupancyGrid.QUARTERS_PER_DAY];
+        int[] daysCounted = new int[WeeklyOccupancyGrid.DAYS];
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            int dayIndex = day.getDayOfWeek().getValue() - 1;
+            WeeklyOccupancyGrid grid = grids.get(weekStart(day));
+            grid.addHoursOfDay(dayIndex, hourly[dayIndex]);
+            grid.addQuartersOfDay(dayIndex, quarterHourly[dayIndex]);
+            daysCounted[dayIndex]++;
+        }
+
+        OccupancyHeatmapDTO dto = new OccupancyHeatmapDTO();
+        dto.setStartDate(startDate);
+        dto.setEndDate(endDate);
+        dto.setHourly(hourly);
+        dto.setQuarterHourly(quarterHourly);
+        dto.setDaysCounted(daysCounted);
+        return dto;
+    }
+
+    /**
+     * Builds grids for the given weeks with one streamed query spanning all of them.
+     */
+    private Map<LocalDate, WeeklyOccupancyGrid> loadWeeks(List<LocalDate> weeks) {
+        Map<LocalDate, WeeklyOccupancyGrid> grids = new HashMap<>();
+        for (LocalDate week : weeks) {
+            grids.put(week, new WeeklyOccupancyGrid());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate from = weeks.get(0);
+        LocalDate to = weeks.get(weeks.size() - 1).plusDays(6);
+        attendanceHistoryRepository.streamSessionIntervals(from, to, fetchSize, (attendanceDate, checkIn, checkOut) -> {
+            LocalDate week = weekStart(attendanceDate);
+            WeeklyOccupancyGrid grid = grids.get(week);
+            if (grid == null) {
+                return; // A week in the span that was already cached
+            }
+            LocalDateTime end = checkOut;
+            if (end == null) {
+                if (!attendanceDate.equals(now.toLocalDate())) {
+                    return; // Never checked out; there is no interval to count
+                }
+                end = now; // Still on the floor
+            }
+            LocalDateTime weekStart = week.atStartOfDay();
+            grid.addInterval((int) ChronoUnit.MINUTES.between(weekStart, checkIn),
+                    (int) ChronoUnit.MINUTES.between(weekStart, end));
+        });
+        grids.values().forEach(WeeklyOccupancyGrid::sweep);
+        return grids;
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,126 @@
+package com.gym.gymmanagementsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live count of members currently in the gym (open sessions today). AttendanceService adjusts it
+ * atomically on every check-in and check-out, so reading it never touches the database.
+ * Subscribers receive it over server-sent events; changes are coalesced and pushed at most
+ * application.occupancy.max-updates-per-second times per second, however many taps happen.
+ * Pushes run on a thread of their own, so a slow subscriber cannot hold up the scheduled jobs.
+ */
+@Service
+public class OccupancyService {
+
+    @Autowired
+    private AttendancePresenceIndex presenceIndex;
+
+    private final AtomicInteger occupancy = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong(); // Bumped on every change
+    private volatile long publishedVersion = -1;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    @Value("${application.occupancy.max-updates-per-second:2}")
+    private int maxUpdatesPerSecond;
+
+    private ScheduledExecutorService publisher;
+
+    @PostConstruct
+    void startPublisher() {
+        if (maxUpdatesPerSecond < 1 || maxUpdatesPerSecond > 1000) {
+            throw new IllegalArgumentException("Occupancy updates per second must be between 1 and 1000");
+        }
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "occupancy-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = 1000 / maxUpdatesPerSecond;
+        publisher.scheduleAtFixedRate(this::publish, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopPublisher() {
+        publisher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * *") // Yesterday's unclosed sessions no longer count at midnight
+    public void resync() {
+        occupancy.set(presenceIndex.countOpenSessions());
+        version.incrementAndGet();
+    }
+
+    public int getOccupancy() {
+        return occupancy.get();
+    }
+
+    public void checkedIn() {
+        occupancy.incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    public void checkedOut() {
+        occupancy.updateAndGet(current -> Math.max(0, current - 1));
+        version.incrementAndGet();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L); // No timeout; front-desk screens stay connected
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        try {
+            emitter.send(event(occupancy.get())); // Current value straight away, updates afterwards
+        } catch (IOException e) {
+            subscribers.remove(emitter);
+        }
+        return emitter;
+    }
+
+    // One counter read per tick, shared by every subscriber; nothing is sent if the value did not change
+    void publish() {
+        long currentVersion = version.get();
+        if (currentVersion == publishedVersion || subscribers.isEmpty()) {
+            publishedVersion = currentVersion;
+            return;
+        }
+        publishedVersion = currentVersion;
+        // Rendered once and shared by every subscriber
+        Set<ResponseBodyEmitter.DataWithMediaType> update = event(occupancy.get()).build();
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(update);
+            } catch (RuntimeException | IOException e) {
+                subscribers.remove(emitter);
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(int value) {
+        return SseEmitter.event()
+                .name("occupancy")
+                .data(Map.of("occupancy", value, "timestamp", System.currentTimeMillis()));
+    }
+}
@@ -1,15 +1,16 @@
 package com.gym.gymmanagementsystem.service;
 
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
 import com.gym.gymmanagementsystem.dto.PaymentDTO;
 import com.gym.gymmanagementsystem.dto.PaymentResponseDTO;
-import com.gym.gymmanagementsystem.model.MembershipPlan;
 import com.gym.gymmanagementsystem.model.Payment;
 import com.gym.gymmanagementsystem.model.User;
-import com.gym.gymmanagementsystem.repository.MembershipPlanRepository;
 import com.gym.gymmanagementsystem.repository.PaymentRepository;
 import com.gym.gymmanagementsystem.repository.UserRepository;
+import com.gym.gymmanagementsystem.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,9 +29,11 @@ public class PaymentService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private MembershipPlanRepository membershipPlanRepository;
+    private MembershipPlanCatalog planCatalog;
     @Autowired
     private UserService userService;
+    @Autowired
+    private MemberEligibilityCache eligibilityCache;
 
     // Helper to convert Payment entity to PaymentResponseDTO
     private PaymentResponseDTO convertToDto(Payment payment) {
@@ -48,9 +51,7 @@ public class PaymentService {
         dto.setNotes(payment.getNotes());
 
         if (payment.getMembershipPlanId() != null) {
-            membershipPlanRepository.findById(payment.getMembershipPlanId()).ifPresent(plan -> {
-                dto.setMembershipPlanName(plan.getPlanName());
-            });
+            planCatalog.findName(payment.getMembershipPlanId()).ifPresent(dto::setMembershipPlanName);
         }
         return dto;
     }
@@ -58,16 +59,17 @@ public class PaymentService {
     @Transactional
     public PaymentResponseDTO addPayment(PaymentDTO paymentDTO) {
         User user = userRepository.findById(paymentDTO.getUserId())
+                .filter(existing -> existing.getDeletedAt() == null) // A soft-deleted member can't be given a new plan
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + paymentDTO.getUserId()));
 
         Double planPrice = 0.0;
-        MembershipPlan selectedPlan = null;
+        MembershipPlanCatalog.Plan selectedPlan = null;
 
         // If a membership plan is selected, fetch its price for validation and due calculation
         if (paymentDTO.getMembershipPlanId() != null) {
-            selectedPlan = membershipPlanRepository.findById(paymentDTO.getMembershipPlanId())
+            selectedPlan = planCatalog.find(paymentDTO.getMembershipPlanId())
                     .orElseThrow(() -> new RuntimeException("Membership Plan not found with ID: " + paymentDTO.getMembershipPlanId()));
-            planPrice = selectedPlan.getPrice();
+            planPrice = selectedPlan.price();
         }
 
         Double dueAmountCalculated = 0.0; // This is the due for the *new* payment being added
@@ -96,17 +98,18 @@ public class PaymentService {
         // Process membership plan assignment/renewal if a plan is specified
         if (selectedPlan != null) {
             if (user.getCurrentPlanId() != null && user.getCurrentPlanEndDate() != null && user.getCurrentPlanEndDate().isAfter(LocalDate.now())) {
-                user.setCurrentPlanEndDate(user.getCurrentPlanEndDate().plusMonths(selectedPlan.getDurationMonths()));
+                user.setCurrentPlanEndDate(user.getCurrentPlanEndDate().plusMonths(selectedPlan.durationMonths()));
                 System.out.println("User " + user.getUserId() + " plan extended. New end date: " + user.getCurrentPlanEndDate());
             } else {
-                user.setCurrentPlanId(selectedPlan.getPlanId());
+                user.setCurrentPlanId(selectedPlan.planId());
                 user.setCurrentPlanStartDate(paymentDTO.getPaymentDate());
-                user.setCurrentPlanEndDate(paymentDTO.getPaymentDate().plusMonths(selectedPlan.getDurationMonths()));
+                user.setCurrentPlanEndDate(paymentDTO.getPaymentDate().plusMonths(selectedPlan.durationMonths()));
                 System.out.println("User " + user.getUserId() + " new plan assigned. End date: " + user.getCurrentPlanEndDate());
             }
             
             userService.deriveAndSetUserStatus(user);
             userRepository.save(user); // Save the updated user (with new plan dates and derived status)
+            eligibilityCache.invalidate(user.getUserId());
         }
 
         Payment savedPayment = paymentRepository.save(payment);
@@ -131,6 +134,34 @@ public class PaymentService {
         return paymentsPage.map(this::convertToDto);
     }
 
+    /**
+     * One slice of all payments ordered by (payment date, payment ID), for cursor-based paging without a COUNT.
+     */
+    public KeysetPageDTO<PaymentResponseDTO> getPaymentSlice(boolean ascending, String cursor, int size) {
+        LocalDate afterDate = null;
+        Integer afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            try {
+                afterDate = LocalDate.parse(position.getSortKey());
+                afterId = Integer.parseInt(position.getId());
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid pagination cursor.");
+            }
+        }
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Payment> payments;
+        if (afterDate == null) {
+            payments = ascending ? paymentRepository.findFirstSlice(limit) : paymentRepository.findLastSlice(limit);
+        } else {
+            payments = ascending
+                    ? paymentRepository.findSliceAfter(afterDate, afterId, limit)
+                    : paymentRepository.findSliceBefore(afterDate, afterId, limit);
+        }
+        List<PaymentResponseDTO> rows = payments.stream().map(this::convertToDto).collect(Collectors.toList());
+        return KeysetPageDTO.fromRows(rows, size, last -> KeysetCursor.encode(last.getPaymentDate(), last.getPaymentId()));
+    }
+
     public PaymentResponseDTO getPaymentById(Integer paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found with ID: " + paymentId));
@@ -176,8 +207,7 @@ public class PaymentService {
 
         Map<String, Double> amountByPlan = payments.stream()
                 .filter(p -> p.getMembershipPlanId() != null)
-                .collect(Collectors.groupingBy(p -> membershipPlanRepository.findById(p.getMembershipPlanId())
-                        .map(MembershipPlan::getPlanName).orElse("Unknown Plan"),
+                .collect(Collectors.groupingBy(p -> planCatalog.findName(p.getMembershipPlanId()).orElse("Unknown Plan"),
                         Collectors.summingDouble(Payment::getAmount)));
 
         Map<String, Object> analytics = new HashMap<>();
@@ -1,22 +1,28 @@
 package com.gym.gymmanagementsystem.service;
 
 import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.repository.UserJdbcRepository;
 import com.gym.gymmanagementsystem.repository.UserRepository;
+import com.gym.gymmanagementsystem.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Ensure this import is present
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 import java.util.stream.Collectors;
 
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
+import com.gym.gymmanagementsystem.dto.MemberSuggestionDTO;
 import com.gym.gymmanagementsystem.dto.UserDTO;
-import com.gym.gymmanagementsystem.model.MembershipPlan;
-import com.gym.gymmanagementsystem.repository.MembershipPlanRepository;
 import com.gym.gymmanagementsystem.dto.UserResponseDTO;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
@@ -26,28 +32,36 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private MembershipPlanRepository membershipPlanRepository;
+    private MembershipPlanCatalog planCatalog;
+    @Autowired
+    private MemberEligibilityCache eligibilityCache;
+    @Autowired
+    private MemberAttendanceCalendar attendanceCalendar;
+    @Autowired
+    private CohortRetentionService cohortRetentionService;
+    @Autowired
+    private MemberSearchIndex searchIndex;
+    @Autowired
+    private MemberIdAllocator memberIdAllocator;
+    @Autowired
+    private UserJdbcRepository userJdbcRepository;
+    @Autowired
+    private AttendancePresenceIndex presenceIndex;
+    @Autowired
+    private OccupancyService occupancyService;
 
-    private final Random random = new Random();
-    private Integer generateUniqueUserId() {
-        Integer newUserId;
-        int maxAttempts = 100;
-        int attempts = 0;
-        do {
-            random.setSeed(System.nanoTime());
-            newUserId = random.nextInt(900000) + 100000;
-            attempts++;
-            if (attempts > maxAttempts) {
-                throw new RuntimeException("Failed to generate a unique 6-digit User ID after " + maxAttempts + " attempts.");
-            }
-        } while (userRepository.existsById(newUserId));
-        return newUserId;
-    }
+    @Value("${application.users.search.max-indexed-matches:1000}")
+    private int maxIndexedMatches;
 
     @Transactional // Ensure transactional for changes to be flushed
     public User addUser(UserDTO userDTO) {
         User user = new User();
-        user.setUserId(userDTO.getUserId() == null ? generateUniqueUserId() : userDTO.getUserId());
+        if (userDTO.getUserId() == null) {
+            user.setUserId(memberIdAllocator.nextId());
+        } else {
+            user.setUserId(userDTO.getUserId());
+            memberIdAllocator.markTaken(userDTO.getUserId());
+        }
         user.setName(userDTO.getName());
         user.setAge(userDTO.getAge());
         user.setGender(userDTO.getGender());
@@ -55,11 +69,11 @@ public class UserService {
         user.setJoiningDate(userDTO.getJoiningDate() != null ? userDTO.getJoiningDate() : LocalDate.now());
         
         if (userDTO.getSelectedPlanId() != null) {
-            MembershipPlan plan = membershipPlanRepository.findById(userDTO.getSelectedPlanId())
+            MembershipPlanCatalog.Plan plan = planCatalog.find(userDTO.getSelectedPlanId())
                 .orElseThrow(() -> new RuntimeException("Membership Plan not found with id: " + userDTO.getSelectedPlanId()));
-            user.setCurrentPlanId(plan.getPlanId());
+            user.setCurrentPlanId(plan.planId());
             user.setCurrentPlanStartDate(user.getJoiningDate());
-            user.setCurrentPlanEndDate(user.getJoiningDate().plusMonths(plan.getDurationMonths()));
+            user.setCurrentPlanEndDate(user.getJoiningDate().plusMonths(plan.durationMonths()));
         } else {
             user.setCurrentPlanId(null);
             user.setCurrentPlanStartDate(null);
@@ -74,119 +88,81 @@ public class UserService {
 
         // Explicitly save the modified managed entity again to ensure status is flushed
         // Even if @Transactional should theoretically handle it, an explicit save ensures flush.
-        return userRepository.save(savedUser); // SECOND SAVE, crucial for status persistence
+        User result = userRepository.save(savedUser); // SECOND SAVE, crucial for status persistence
+        eligibilityCache.invalidate(result.getUserId()); // The ID may have been in use before
+        searchIndex.put(result.getUserId(), result.getName(), result.getContactNumber());
+        return result;
     }
 
     public User deriveAndSetUserStatus(User user) {
-        if (user.getCurrentPlanId() != null && user.getCurrentPlanEndDate() != null) {
-            if (user.getCurrentPlanEndDate().isAfter(LocalDate.now())) {
-                user.setMembershipStatus("Active");
-            } else {
-                user.setMembershipStatus("Expired");
-            }
-        } else {
-            user.setMembershipStatus("Inactive");
-        }
+        user.setMembershipStatus(membershipStatus(user.getCurrentPlanId(), user.getCurrentPlanEndDate(), LocalDate.now()));
         System.out.println("Derived status for user " + user.getUserId() + " (" + user.getName() + "): " + user.getMembershipStatus() + " (Plan End Date: " + user.getCurrentPlanEndDate() + ")");
         return user; // Return the modified entity (which is a managed entity)
     }
 
 
-    public Page<UserResponseDTO> getAllUsers(Pageable pageable) {
-        Page<User> usersPage = userRepository.findAll(pageable);
-        return usersPage.map(user -> {
-            UserResponseDTO dto = new UserResponseDTO();
-            dto.setUserId(user.getUserId());
-            dto.setName(user.getName());
-            dto.setAge(user.getAge());
-            dto.setGender(user.getGender());
-            dto.setContactNumber(user.getContactNumber());
-            dto.setJoiningDate(user.getJoiningDate());
+    // Active while the plan has not yet ended, Expired once it has, Inactive without a plan
+    public static String membershipStatus(Integer planId, LocalDate planEndDate, LocalDate today) {
+        if (planId != null && planEndDate != null) {
+            return planEndDate.isAfter(today) ? "Active" : "Expired";
+        }
+        return "Inactive";
+    }
 
-            if (user.getCurrentPlanId() != null && user.getCurrentPlanStartDate() != null && user.getCurrentPlanEndDate() != null) {
-                MembershipPlan plan = membershipPlanRepository.findById(user.getCurrentPlanId()).orElse(null);
-                if (plan != null) {
-                    dto.setCurrentPlanId(user.getCurrentPlanId());
-                    dto.setCurrentPlanName(plan.getPlanName());
-                    dto.setCurrentPlanStartDate(user.getCurrentPlanStartDate());
-                    dto.setCurrentPlanEndDate(user.getCurrentPlanEndDate());
+    // The row the member listings build in SQL, for a member that was just written
+    public UserResponseDTO toResponse(User user) {
+        LocalDate today = LocalDate.now();
+        boolean hasPlanDates = user.getCurrentPlanId() != null && user.getCurrentPlanStartDate() != null && user.getCurrentPlanEndDate() != null;
+        Optional<MembershipPlanCatalog.Plan> plan = hasPlanDates ? planCatalog.find(user.getCurrentPlanId()) : Optional.empty();
+        boolean hasPlan = plan.isPresent();
+        boolean active = hasPlan && user.getCurrentPlanEndDate().isAfter(today);
+        return new UserResponseDTO(user.getUserId(), user.getName(), user.getAge(), user.getGender(), user.getContactNumber(),
+                user.getJoiningDate(), active ? "Active" : hasPlan ? "Expired" : "Inactive", active,
+                hasPlanDates ? user.getCurrentPlanId() : null,
+                hasPlan ? plan.get().planName() : hasPlanDates ? "Unknown Plan" : null,
+                hasPlan ? user.getCurrentPlanStartDate() : null, hasPlan ? user.getCurrentPlanEndDate() : null);
+    }
 
-                    boolean isActive = user.getCurrentPlanEndDate().isAfter(LocalDate.now());
-                    dto.setCurrentPlanIsActive(isActive);
+    public Page<UserResponseDTO> getAllUsers(Pageable pageable) {
+        return userRepository.findAllResponses(LocalDate.now(), pageable);
+    }
 
-                    if (isActive) {
-                        dto.setMembershipStatus("Active");
-                    } else {
-                        dto.setMembershipStatus("Expired");
-                    }
-                } else {
-                    dto.setMembershipStatus("Inactive");
-                    dto.setCurrentPlanIsActive(false);
-                    dto.setCurrentPlanId(user.getCurrentPlanId());
-                    dto.setCurrentPlanName("Unknown Plan");
-                    dto.setCurrentPlanStartDate(null);
-                    dto.setCurrentPlanEndDate(null);
-                }
-            } else {
-                dto.setMembershipStatus("Inactive");
-                dto.setCurrentPlanIsActive(false);
-                dto.setCurrentPlanId(null);
-                dto.setCurrentPlanName(null);
-                dto.setCurrentPlanStartDate(null);
-                dto.setCurrentPlanEndDate(null);
+    /**
+     * One slice of the member list ordered by (joining date, user ID), for cursor-based paging without a COUNT.
+     */
+    public KeysetPageDTO<UserResponseDTO> getUserSlice(boolean ascending, String cursor, int size) {
+        LocalDate afterDate = null;
+        Integer afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            try {
+                afterDate = LocalDate.parse(position.getSortKey());
+                afterId = Integer.parseInt(position.getId());
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid pagination cursor.");
             }
-            return dto;
-        });
+        }
+        Pageable limit = PageRequest.of(0, size + 1);
+        LocalDate today = LocalDate.now();
+        List<UserResponseDTO> rows;
+        if (afterDate == null) {
+            rows = ascending ? userRepository.findFirstResponses(today, limit) : userRepository.findLastResponses(today, limit);
+        } else {
+            rows = ascending
+                    ? userRepository.findResponsesAfter(afterDate, afterId, today, limit)
+                    : userRepository.findResponsesBefore(afterDate, afterId, today, limit);
+        }
+        return KeysetPageDTO.fromRows(rows, size, last -> KeysetCursor.encode(last.getJoiningDate(), last.getUserId()));
     }
 
     public Optional<UserResponseDTO> getUserById(Integer userId) {
-        return userRepository.findById(userId).map(user -> {
-            UserResponseDTO dto = new UserResponseDTO();
-            dto.setUserId(user.getUserId());
-            dto.setName(user.getName());
-            dto.setAge(user.getAge());
-            dto.setGender(user.getGender());
-            dto.setContactNumber(user.getContactNumber());
-            dto.setJoiningDate(user.getJoiningDate());
-
-            if (user.getCurrentPlanId() != null && user.getCurrentPlanStartDate() != null && user.getCurrentPlanEndDate() != null) {
-                MembershipPlan plan = membershipPlanRepository.findById(user.getCurrentPlanId()).orElse(null);
-                if (plan != null) {
-                    dto.setCurrentPlanId(user.getCurrentPlanId());
-                    dto.setCurrentPlanName(plan.getPlanName());
-                    dto.setCurrentPlanStartDate(user.getCurrentPlanStartDate());
-                    dto.setCurrentPlanEndDate(user.getCurrentPlanEndDate());
-                    boolean isActive = user.getCurrentPlanEndDate().isAfter(LocalDate.now());
-                    dto.setCurrentPlanIsActive(isActive);
-
-                    if (isActive) {
-                        dto.setMembershipStatus("Active");
-                    } else {
-                        dto.setMembershipStatus("Expired");
-                    }
-                } else {
-                    dto.setMembershipStatus("Inactive");
-                    dto.setCurrentPlanIsActive(false);
-                    dto.setCurrentPlanId(user.getCurrentPlanId());
-                    dto.setCurrentPlanName("Unknown Plan");
-                    dto.setCurrentPlanStartDate(null);
-                    dto.setCurrentPlanEndDate(null);
-                }
-            } else {
-                dto.setMembershipStatus("Inactive");
-                dto.setCurrentPlanIsActive(false);
-                dto.setCurrentPlanId(null);
-                dto.setCurrentPlanName(null);
-                dto.setCurrentPlanStartDate(null);
-                dto.setCurrentPlanEndDate(null);
-            }
-            return dto;
-        });
+        return userRepository.findResponseById(userId, LocalDate.now());
     }
 
     @Transactional // Ensure transactional for changes to be flushed
     public User updateUser(Integer userId, UserDTO userDTO) {
         User user = userRepository.findById(userId)
+                .filter(existing -> existing.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         user.setName(userDTO.getName());
         user.setAge(user.getAge());
@@ -195,18 +171,18 @@ public class UserService {
         user.setJoiningDate(userDTO.getJoiningDate());
 
         if (userDTO.getSelectedPlanId() != null) {
-            MembershipPlan newPlan = membershipPlanRepository.findById(userDTO.getSelectedPlanId())
+            MembershipPlanCatalog.Plan newPlan = planCatalog.find(userDTO.getSelectedPlanId())
                 .orElseThrow(() -> new RuntimeException("Membership Plan not found with id: " + userDTO.getSelectedPlanId()));
             boolean hasCurrentlyActiveStoredPlan = (user.getCurrentPlanStartDate() != null && !user.getCurrentPlanStartDate().isAfter(LocalDate.now())) &&
                                                    (user.getCurrentPlanEndDate() != null && user.getCurrentPlanEndDate().isAfter(LocalDate.now()));
             if (hasCurrentlyActiveStoredPlan && !userDTO.getSelectedPlanId().equals(user.getCurrentPlanId())) {
-                String currentPlanName = membershipPlanRepository.findById(user.getCurrentPlanId()).map(MembershipPlan::getPlanName).orElse("Unknown Plan");
+                String currentPlanName = planCatalog.findName(user.getCurrentPlanId()).orElse("Unknown Plan");
                 throw new RuntimeException("User already has an active membership plan ('" + currentPlanName + "'). Please remove the current plan before assigning a new one.");
             }
 
-            user.setCurrentPlanId(newPlan.getPlanId());
+            user.setCurrentPlanId(newPlan.planId());
             user.setCurrentPlanStartDate(user.getJoiningDate());
-            user.setCurrentPlanEndDate(user.getJoiningDate().plusMonths(newPlan.getDurationMonths()));
+            user.setCurrentPlanEndDate(user.getJoiningDate().plusMonths(newPlan.durationMonths()));
         } else {
             user.setCurrentPlanId(null);
             user.setCurrentPlanStartDate(null);
@@ -215,63 +191,81 @@ public class UserService {
 
         // Derive and set status, then save again
         deriveAndSetUserStatus(user); // Call the derivation on the managed entity
+        eligibilityCache.invalidate(userId);
+        searchIndex.put(userId, user.getName(), user.getContactNumber());
         return userRepository.save(user); // SECOND SAVE, crucial for status persistence
     }
 
-    public void deleteUser(Integer userId) {
-        userRepository.deleteById(userId);
+    /**
+     * Removes a member together with their attendance, daily and summary rows and payments, one set-based
+     * DELETE per table in a single transaction, so the cost does not grow with the member's history.
+     * A soft delete keeps the member row (marked deleted, without a plan) and the history for reports;
+     * either way the member drops out of listings, search, check-in and the live occupancy count.
+     * The in-memory indexes are only updated once the delete has committed.
+     */
+    @Transactional
+    public void deleteUser(Integer userId, boolean soft) {
+        int removed = soft
+                ? userJdbcRepository.softDeleteMember(userId, LocalDateTime.now())
+                : userJdbcRepository.deleteMember(userId);
+        if (removed == 0) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+        searchIndex.remove(userId); // Defers itself to after commit
+        afterCommit(() -> {
+            eligibilityCache.invalidate(userId);
+            presenceIndex.remove(userId, LocalDate.now());
+            occupancyService.resync();
+            if (!soft) {
+                attendanceCalendar.removeMember(userId);
+                cohortRetentionService.removeMember(userId);
+            }
+        });
     }
 
-    public Page<UserResponseDTO> searchUsers(String query, Pageable pageable) {
-        Page<User> usersPage;
-        if (query == null || query.trim().isEmpty()) {
-            usersPage = userRepository.findAll(pageable);
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
         } else {
-            usersPage = userRepository.findBySearchQuery(query.trim(), pageable);
+            action.run();
         }
+    }
 
-        return usersPage.map(user -> {
-            UserResponseDTO dto = new UserResponseDTO();
-            dto.setUserId(user.getUserId());
-            dto.setName(user.getName());
-            dto.setAge(user.getAge());
-            dto.setGender(user.getGender());
-            dto.setContactNumber(user.getContactNumber());
-            dto.setJoiningDate(user.getJoiningDate());
-
-            if (user.getCurrentPlanId() != null && user.getCurrentPlanStartDate() != null && user.getCurrentPlanEndDate() != null) {
-                MembershipPlan plan = membershipPlanRepository.findById(user.getCurrentPlanId()).orElse(null);
-                if (plan != null) {
-                    dto.setCurrentPlanId(user.getCurrentPlanId());
-                    dto.setCurrentPlanName(plan.getPlanName());
-                    dto.setCurrentPlanStartDate(user.getCurrentPlanStartDate());
-                    dto.setCurrentPlanEndDate(user.getCurrentPlanEndDate());
-
-                    boolean isActive = user.getCurrentPlanEndDate().isAfter(LocalDate.now());
-                    dto.setCurrentPlanIsActive(isActive);
-
-                    if (isActive) {
-                        dto.setMembershipStatus("Active");
-                    } else {
-                        dto.setMembershipStatus("Expired");
-                    }
-                } else {
-                    dto.setMembershipStatus("Inactive");
-                    dto.setCurrentPlanIsActive(false);
-                    dto.setCurrentPlanId(user.getCurrentPlanId());
-                    dto.setCurrentPlanName("Unknown Plan");
-                    dto.setCurrentPlanStartDate(null);
-                    dto.setCurrentPlanEndDate(null);
-                }
-            } else {
-                dto.setMembershipStatus("Inactive");
-                dto.setCurrentPlanIsActive(false);
-                dto.setCurrentPlanId(null);
-                dto.setCurrentPlanName(null);
-                dto.setCurrentPlanStartDate(null);
-                dto.setCurrentPlanEndDate(null);
+    public Page<UserResponseDTO> searchUsers(String query, Pageable pageable) {
+        if (query == null || query.trim().isEmpty()) {
+            return userRepository.findAllResponses(LocalDate.now(), pageable);
+        }
+        if (searchIndex.isReady()) {
+            // The index finds the matching IDs; the page itself (sorting, plan details) still comes from the database.
+            // Very broad queries (one or two characters) match too many members for an IN list, so they use LIKE.
+            List<Integer> matches = searchIndex.search(query, maxIndexedMatches + 1);
+            if (matches.isEmpty()) {
+                return Page.empty(pageable);
             }
-            return dto;
-        });
+            if (matches.size() <= maxIndexedMatches) {
+                return userRepository.findResponsesByUserIdIn(matches, LocalDate.now(), pageable);
+            }
+        }
+        return userRepository.findResponsesBySearchQuery(query.trim(), LocalDate.now(), pageable);
+    }
+
+    // Type-ahead for the front-desk search box: best matches first
+    public List<MemberSuggestionDTO> suggestUsers(String query, int limit) {
+        if (searchIndex.isReady()) {
+            return searchIndex.suggest(query, limit);
+        }
+        return userRepository.findResponsesBySearchQuery(query.trim(), LocalDate.now(), PageRequest.of(0, limit))
+                .map(user -> {
+                    MemberSuggestionDTO suggestion = new MemberSuggestionDTO();
+                    suggestion.setUserId(user.getUserId());
+                    suggestion.setName(user.getName());
+                    suggestion.setContactNumber(user.getContactNumber());
+                    return suggestion;
+                }).getContent();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.gym.gymmanagementsystem.service;
+
+/**
+ * Occupancy of one Monday-to-Sunday week in primitive buckets: how many sessions were present
+ * in each hour (7 x 24) and each quarter-hour (7 x 96). Sessions are added as minute-of-week
+ * intervals into difference arrays (+1 at the first bucket, -1 after the last), and a single
+ * prefix-sum pass turns them into counts, so adding a session is O(1) regardless of its length.
+ */
+final class WeeklyOccupancyGrid {
+
+    static final int DAYS = 7;
+    static final int HOURS_PER_DAY = 24;
+    static final int QUARTERS_PER_DAY = 96;
+    static final int MINUTES_PER_WEEK = DAYS * 24 * 60;
+
+    private final int[] hours = new int[DAYS * HOURS_PER_DAY + 1];
+    private final int[] quarters = new int[DAYS * QUARTERS_PER_DAY + 1];
+    private boolean swept;
+
+    /**
+     * Adds a session present from startMinute (inclusive) to endMinute (exclusive), both counted
+     * from Monday 00:00 of this week. Anything past the end of the week is clipped.
+     */
+    void addInterval(int startMinute, int endMinute) {
+        if (swept) {
+            throw new IllegalStateException("Grid has already been swept");
+        }
+        int start = Math.max(0, startMinute);
+        int end = Math.min(MINUTES_PER_WEEK, endMinute);
+        if (end <= start) {
+            end = Math.min(MINUTES_PER_WEEK, start + 1); // Zero-length sessions still occupy their bucket
+            if (end <= start) {
+                return;
+            }
+        }
+        hours[start / 60]++;
+        hours[ceilDiv(end, 60)]--;
+        quarters[start / 15]++;
+        quarters[ceilDiv(end, 15)]--;
+    }
+
+    /**
+     * Converts the difference arrays into per-bucket counts. Must be called once, after the last interval.
+     */
+    WeeklyOccupancyGrid sweep() {
+        for (int i = 1; i < hours.length; i++) {
+            hours[i] += hours[i - 1];
+        }
+        for (int i = 1; i < quarters.length; i++) {
+            quarters[i] += quarters[i - 1];
+        }
+        swept = true;
+        return this;
+    }
+
+    // dayIndex 0 = Monday
+    void addHoursOfDay(int dayIndex, int[] target) {
+        checkSwept();
+        for (int h = 0; h < HOURS_PER_DAY; h++) {
+            target[h] += hours[dayIndex * HOURS_PER_DAY + h];
+        }
+    }
+
+    void addQuartersOfDay(int dayIndex, int[] target) {
+        checkSwept();
+        for (int q = 0; q < QUARTERS_PER_DAY; q++) {
+            target[q] += quarters[dayIndex * QUARTERS_PER_DAY + q];
+        }
+    }
+
+    private void checkSwept() {
+        if (!swept) {
+            throw new IllegalStateException("Grid has not been swept yet");
+        }
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,80 @@
+package com.gym.gymmanagementsystem.repository;
+
+import com.gym.gymmanagementsystem.dto.AttendanceResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class AttendanceHistoryRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AttendanceHistoryRepository historyRepository;
+
+    @BeforeEach
+    void setUp() {
+        historyRepository = new AttendanceHistoryRepository();
+        ReflectionTestUtils.setField(historyRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void slicesVisitEverySessionOnceAcrossBothTablesInBothDirections() {
+        for (int userId = 100001; userId <= 100010; userId++) {
+            jdbcTemplate.update("INSERT INTO users (user_id, name, joining_date) VALUES (?, ?, ?)", userId, "Member " + userId, TODAY);
+            for (int d = 0; d < 6; d++) {
+                LocalDate date = TODAY.minusDays(d);
+                LocalDateTime checkIn = date.atTime(7, userId % 3); // Check-in instants repeat across members
+                if (d < 2) {
+                    jdbcTemplate.update("INSERT INTO attendance (user_id, check_in_time, check_out_time, time_spent_minutes, " +
+                            "attendance_date) VALUES (?, ?, ?, 60, ?)", userId, checkIn, checkIn.plusHours(1), date);
+                }
+                if (d > 0) { // Yesterday is in both tables, not yet rolled over
+                    jdbcTemplate.update("INSERT INTO daily_attendance (user_id, attendance_date, check_in, check_out, " +
+                            "time_spent_minutes) VALUES (?, ?, ?, ?, 60)", userId, date, checkIn, checkIn.plusHours(1));
+                }
+            }
+        }
+
+        for (boolean newestFirst : new boolean[] {true, false}) {
+            List<AttendanceResponseDTO> seen = new ArrayList<>();
+            LocalDateTime afterCheckIn = null;
+            Integer afterUserId = null;
+            while (true) {
+                List<AttendanceResponseDTO> slice = historyRepository.findSlice(newestFirst, afterCheckIn, afterUserId, 7);
+                if (slice.isEmpty()) {
+                    break;
+                }
+                seen.addAll(slice);
+                afterCheckIn = slice.get(slice.size() - 1).getCheckInTime();
+                afterUserId = slice.get(slice.size() - 1).getUserId();
+            }
+            assertEquals(60, seen.size());
+            assertEquals(20, seen.stream().filter(row -> row.getAttendanceId() != null).count());
+            for (int i = 1; i < seen.size(); i++) {
+                int order = seen.get(i - 1).getCheckInTime().compareTo(seen.get(i).getCheckInTime());
+                if (order == 0) {
+                    order = seen.get(i - 1).getUserId().compareTo(seen.get(i).getUserId());
+                }
+                assertTrue(newestFirst ? order > 0 : order < 0);
+            }
+        }
+    }
+}
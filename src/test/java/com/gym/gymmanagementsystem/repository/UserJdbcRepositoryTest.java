@@ -0,0 +1,134 @@
+package com.gym.gymmanagementsystem.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs outside a test transaction: the summary tables are created here (they have no entity), and DDL commits.
+// YEAR and MONTH are keywords in H2, hence the quoted column names.
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserJdbcRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserJdbcRepository userJdbcRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS monthly_attendance_summary (user_id INT, \"YEAR\" INT, \"MONTH\" INT, " +
+                "total_present_days INT, total_minutes_spent BIGINT, PRIMARY KEY (user_id, \"YEAR\", \"MONTH\"))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS yearly_attendance_summary (user_id INT, \"YEAR\" INT, " +
+                "total_present_days INT, total_minutes_spent BIGINT, PRIMARY KEY (user_id, \"YEAR\"))");
+        userJdbcRepository = new UserJdbcRepository();
+        ReflectionTestUtils.setField(userJdbcRepository, "jdbcTemplate", jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[] {"attendance", "daily_attendance", "monthly_attendance_summary",
+                "yearly_attendance_summary", "payments", "users"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    // A member with one visit a day for the given number of days up to TODAY, rolled up like the summary job does
+    private void memberWithHistory(int userId, int days, boolean withPayments) {
+        jdbcTemplate.update("INSERT INTO users (user_id, name, joining_date, membership_status, current_plan_id, " +
+                "current_plan_start_date, current_plan_end_date) VALUES (?, ?, ?, 'Active', 1, ?, ?)",
+                userId, "Member " + userId, TODAY.minusDays(days), TODAY.minusDays(10), TODAY.plusDays(20));
+        List<Object[]> visits = new ArrayList<>(days);
+        List<Object[]> dailyRows = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            LocalDate date = TODAY.minusDays(d);
+            LocalDateTime checkIn = date.atTime(7, 0);
+            visits.add(new Object[] {userId, checkIn, checkIn.plusMinutes(60), 60L, date});
+            dailyRows.add(new Object[] {userId, date, checkIn, checkIn.plusMinutes(60), 60L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO attendance (user_id, check_in_time, check_out_time, time_spent_minutes, " +
+                "attendance_date) VALUES (?, ?, ?, ?, ?)", visits);
+        jdbcTemplate.batchUpdate("INSERT INTO daily_attendance (user_id, attendance_date, check_in, check_out, " +
+                "time_spent_minutes) VALUES (?, ?, ?, ?, ?)", dailyRows);
+        jdbcTemplate.update("INSERT INTO monthly_attendance_summary SELECT user_id, YEAR(attendance_date), MONTH(attendance_date), " +
+                "COUNT(*), SUM(time_spent_minutes) FROM daily_attendance WHERE user_id = ? " +
+                "GROUP BY user_id, YEAR(attendance_date), MONTH(attendance_date)", userId);
+        jdbcTemplate.update("INSERT INTO yearly_attendance_summary SELECT user_id, \"YEAR\", SUM(total_present_days), " +
+                "SUM(total_minutes_spent) FROM monthly_attendance_summary WHERE user_id = ? GROUP BY user_id, \"YEAR\"", userId);
+        if (withPayments) {
+            for (int m = 0; m < days / 30; m++) {
+                jdbcTemplate.update("INSERT INTO payments (user_id, amount, due_amount, payment_date, payment_method) " +
+                        "VALUES (?, 1000, 0, ?, 'Cash')", userId, TODAY.minusMonths(m));
+            }
+        }
+    }
+
+    private int rowsOf(int userId) {
+        int rows = 0;
+        for (String table : new String[] {"attendance", "daily_attendance", "monthly_attendance_summary",
+                "yearly_attendance_summary", "payments", "users"}) {
+            rows += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE user_id = ?", Integer.class, userId);
+        }
+        return rows;
+    }
+
+    @Test
+    void hardDeleteRemovesTheMemberAndEverythingRecordedAgainstThem() {
+        memberWithHistory(100001, 400, true);
+        memberWithHistory(100002, 40, true);
+        int othersRows = rowsOf(100002);
+
+        assertEquals(1, (int) transactionTemplate.execute(status -> userJdbcRepository.deleteMember(100001)));
+        assertEquals(0, rowsOf(100001));
+        assertEquals(othersRows, rowsOf(100002));
+        assertEquals(0, (int) transactionTemplate.execute(status -> userJdbcRepository.deleteMember(100001)));
+    }
+
+    @Test
+    void softDeleteKeepsTheHistoryButHidesTheMember() {
+        memberWithHistory(100001, 40, true);
+        memberWithHistory(100002, 40, false);
+        int rowsBefore = rowsOf(100001);
+
+        assertEquals(1, userJdbcRepository.softDeleteMember(100001, TODAY.atTime(12, 0)));
+        assertEquals(0, userJdbcRepository.softDeleteMember(100001, TODAY.atTime(13, 0)));
+        assertEquals(rowsBefore, rowsOf(100001));
+
+        assertTrue(userRepository.findResponseById(100001, TODAY).isEmpty());
+        assertEquals(1, userRepository.findAllResponses(TODAY, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(List.of(100002), userRepository.findAllSearchFields().stream().map(UserRepository.SearchFieldsView::getUserId).toList());
+        assertEquals(List.of(100002), userRepository.findEligibilityByUserIdIn(List.of(100001, 100002)).stream()
+                .map(UserRepository.EligibilityView::getUserId).toList());
+        assertEquals("Deleted", jdbcTemplate.queryForObject("SELECT membership_status FROM users WHERE user_id = 100001", String.class));
+        assertEquals(0, (int) transactionTemplate.execute(status -> userRepository.recomputeAllStatuses(TODAY))); // Stays 'Deleted'
+        assertEquals(1, userRepository.countByMembershipStatusAndCurrentPlanEndDateAfter("Active", TODAY));
+    }
+}
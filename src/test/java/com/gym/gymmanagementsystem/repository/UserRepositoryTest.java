@@ -0,0 +1,250 @@
+package com.gym.gymmanagementsystem.repository;
+
+import com.gym.gymmanagementsystem.dto.UserResponseDTO;
+import com.gym.gymmanagementsystem.model.MembershipPlan;
+import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.service.MemberSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class UserRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MembershipPlanRepository planRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Integer monthlyPlanId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MembershipPlan monthly = new MembershipPlan();
+        monthly.setPlanName("Monthly");
+        monthly.setPrice(1000.0);
+        monthly.setDurationMonths(1);
+        monthlyPlanId = planRepository.save(monthly).getPlanId();
+    }
+
+    private User member(int userId, String name, Integer planId, LocalDate start, LocalDate end) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName(name);
+        user.setContactNumber("98765" + userId);
+        user.setJoiningDate(LocalDate.of(2025, 1, 1).plusDays(userId % 100));
+        user.setCurrentPlanId(planId);
+        user.setCurrentPlanStartDate(start);
+        user.setCurrentPlanEndDate(end);
+        return userRepository.save(user);
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void responseRowsCarryPlanNameAndDerivedStatus() {
+        member(100001, "Active Member", monthlyPlanId, TODAY.minusDays(10), TODAY.plusDays(20));
+        member(100002, "Expired Member", monthlyPlanId, TODAY.minusMonths(2), TODAY);
+        member(100003, "Deleted Plan Member", 9999, TODAY.minusDays(10), TODAY.plusDays(20));
+        member(100004, "No Plan Member", null, null, null);
+        member(100005, "Undated Plan Member", monthlyPlanId, null, TODAY.plusDays(20));
+        flushAndClear();
+
+        UserResponseDTO active = userRepository.findResponseById(100001, TODAY).orElseThrow();
+        assertEquals("Active", active.getMembershipStatus());
+        assertTrue(active.isCurrentPlanIsActive());
+        assertEquals("Monthly", active.getCurrentPlanName());
+        assertEquals(TODAY.plusDays(20), active.getCurrentPlanEndDate());
+
+        UserResponseDTO expired = userRepository.findResponseById(100002, TODAY).orElseThrow();
+        assertEquals("Expired", expired.getMembershipStatus()); // Ends today: no longer active
+        assertFalse(expired.isCurrentPlanIsActive());
+        assertEquals(monthlyPlanId, expired.getCurrentPlanId());
+
+        UserResponseDTO unknownPlan = userRepository.findResponseById(100003, TODAY).orElseThrow();
+        assertEquals("Inactive", unknownPlan.getMembershipStatus());
+        assertEquals("Unknown Plan", unknownPlan.getCurrentPlanName());
+        assertEquals(9999, unknownPlan.getCurrentPlanId());
+        assertNull(unknownPlan.getCurrentPlanEndDate());
+
+        for (int userId : new int[] {100004, 100005}) {
+            UserResponseDTO noPlan = userRepository.findResponseById(userId, TODAY).orElseThrow();
+            assertEquals("Inactive", noPlan.getMembershipStatus());
+            assertNull(noPlan.getCurrentPlanId());
+            assertNull(noPlan.getCurrentPlanName());
+        }
+        assertTrue(userRepository.findResponseById(123456, TODAY).isEmpty());
+    }
+
+    @Test
+    void searchMatchesNameIdOrContactAndCountsMatches() {
+        member(100001, "Ravi Kumar", monthlyPlanId, TODAY.minusDays(10), TODAY.plusDays(20));
+        member(100002, "Sita Devi", null, null, null);
+        member(200003, "Arun", null, null, null);
+        flushAndClear();
+
+        PageRequest page = PageRequest.of(0, 10, Sort.by("name"));
+        assertEquals(1, userRepository.findResponsesBySearchQuery("ravi", TODAY, page).getTotalElements());
+        assertEquals(2, userRepository.findResponsesBySearchQuery("10000", TODAY, page).getTotalElements());
+        Page<UserResponseDTO> byContact = userRepository.findResponsesBySearchQuery("98765200003", TODAY, page);
+        assertEquals("Arun", byContact.getContent().get(0).getName());
+    }
+
+    @Test
+    void aPageIsOneSelectPlusItsCountWithNothingManaged() {
+        for (int i = 0; i < 200; i++) {
+            boolean withPlan = i % 3 != 0;
+            member(100000 + i, "Member " + i, withPlan ? monthlyPlanId : null,
+                    withPlan ? TODAY.minusDays(i % 60) : null, withPlan ? TODAY.plusDays(30 - i % 60) : null);
+        }
+        flushAndClear();
+
+        PageRequest page = PageRequest.of(3, 50, Sort.by(Sort.Direction.DESC, "joiningDate"));
+        Page<UserResponseDTO> result = userRepository.findAllResponses(TODAY, page);
+        assertEquals(50, result.getContent().size());
+        assertEquals(200, result.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void searchIndexAgreesWithTheLikeQuery() {
+        String[] first = {"Ravi", "Sita", "Arun", "Priya", "Kiran", "Lakshmi", "Mahesh", "Divya", "Suresh", "Anitha"};
+        String[] last = {"Kumar", "Reddy", "Sharma", "Naidu", "Rao", "Patel", "Iyer", "Das", "Singh", "Varma"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int n = 0; n < 2_000; n++) {
+            rows.add(new Object[] {100000 + n, first[n % 10] + " " + last[(n / 10) % 10] + " " + n,
+                    String.valueOf(9_000_000_000L + n * 7919L), LocalDate.of(2024, 1, 1).plusDays(n % 500)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, name, contact_number, joining_date) VALUES (?, ?, ?, ?)", rows);
+
+        MemberSearchIndex index = new MemberSearchIndex();
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        index.rebuild();
+
+        String[] queries = {"lakshmi naidu 4", "sharma 123", "900004", "101999", "iyer 16"};
+        for (String query : queries) {
+            Set<Integer> viaSql = userRepository.findBySearchQuery(query, PageRequest.of(0, 100_000)).stream()
+                    .map(User::getUserId).collect(Collectors.toSet());
+            assertEquals(viaSql, new HashSet<>(index.search(query)), query);
+        }
+    }
+
+    @Test
+    void keysetSlicesVisitEveryMemberOnceInBothDirections() {
+        for (int i = 0; i < 250; i++) {
+            member(100000 + i * 7 % 250, "Member " + i, null, null, null); // Joining dates repeat every 100 IDs
+        }
+        flushAndClear();
+
+        for (boolean ascending : new boolean[] {true, false}) {
+            List<UserResponseDTO> seen = new ArrayList<>();
+            LocalDate afterDate = null;
+            Integer afterId = null;
+            while (true) {
+                PageRequest limit = PageRequest.of(0, 30);
+                List<UserResponseDTO> slice = afterDate == null
+                        ? (ascending ? userRepository.findFirstResponses(TODAY, limit) : userRepository.findLastResponses(TODAY, limit))
+                        : (ascending ? userRepository.findResponsesAfter(afterDate, afterId, TODAY, limit)
+                                     : userRepository.findResponsesBefore(afterDate, afterId, TODAY, limit));
+                if (slice.isEmpty()) {
+                    break;
+                }
+                seen.addAll(slice);
+                afterDate = slice.get(slice.size() - 1).getJoiningDate();
+                afterId = slice.get(slice.size() - 1).getUserId();
+            }
+            assertEquals(250, seen.size());
+            assertEquals(250, seen.stream().map(UserResponseDTO::getUserId).distinct().count());
+            for (int i = 1; i < seen.size(); i++) {
+                int order = seen.get(i - 1).getJoiningDate().compareTo(seen.get(i).getJoiningDate());
+                if (order == 0) {
+                    order = seen.get(i - 1).getUserId().compareTo(seen.get(i).getUserId());
+                }
+                assertTrue(ascending ? order < 0 : order > 0);
+            }
+        }
+    }
+
+    @Test
+    void statusUpdatesFollowThePlanDatesAndTouchOnlyRowsThatChange() {
+        member(100001, "Running", monthlyPlanId, TODAY.minusDays(10), TODAY.plusDays(20)).setMembershipStatus("Active");
+        member(100002, "Ended Today", monthlyPlanId, TODAY.minusMonths(1), TODAY).setMembershipStatus("Active");
+        member(100003, "Ended Long Ago", monthlyPlanId, TODAY.minusMonths(3), TODAY.minusMonths(2)).setMembershipStatus("Active");
+        member(100004, "Renewed Elsewhere", monthlyPlanId, TODAY, TODAY.plusMonths(1)).setMembershipStatus("Expired");
+        member(100005, "Never Derived", null, null, null);
+        member(100006, "Dropped Plan", null, null, TODAY.minusDays(1)).setMembershipStatus("Active");
+        flushAndClear();
+
+        assertEquals(2, userRepository.expireEndedPlans(TODAY));
+        assertEquals(0, userRepository.expireEndedPlans(TODAY));
+        assertEquals(3, userRepository.recomputeAllStatuses(TODAY)); // Renewed, never derived, dropped plan
+        assertEquals(0, userRepository.recomputeAllStatuses(TODAY));
+
+        List<String> statuses = jdbcTemplate.queryForList("SELECT membership_status FROM users ORDER BY user_id", String.class);
+        assertEquals(List.of("Active", "Expired", "Expired", "Active", "Inactive", "Inactive"), statuses);
+        assertEquals(2, userRepository.countByMembershipStatusAndCurrentPlanEndDateAfter("Active", TODAY));
+        assertEquals(List.of(100002, 100001), userRepository.findPlansEndingBetween(TODAY, TODAY.plusDays(20)).stream()
+                .map(User::getUserId).toList());
+        List<UserRepository.PlanMemberCount> perPlan = userRepository.countActiveMembersByPlan(TODAY);
+        assertEquals(1, perPlan.size());
+        assertEquals(2, perPlan.get(0).getMembers());
+    }
+
+    @Test
+    void activeCountComesFromTheRecomputedStatusColumn() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int n = 0; n < 2_000; n++) {
+            LocalDate end = n % 4 == 0 ? null : TODAY.plusDays(n % 120 - 60);
+            rows.add(new Object[] {100000 + n, "Member " + n, LocalDate.of(2024, 1, 1), end == null ? null : monthlyPlanId,
+                    end == null ? null : end.minusMonths(1), end, "Active"}); // Stale: everyone still 'Active'
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, name, joining_date, current_plan_id, current_plan_start_date, " +
+                "current_plan_end_date, membership_status) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        flushAndClear();
+
+        long expected = rows.stream().filter(row -> row[5] != null && ((LocalDate) row[5]).isAfter(TODAY)).count();
+        assertEquals(2_000 - expected, userRepository.recomputeAllStatuses(TODAY));
+        assertEquals(expected, userRepository.countByMembershipStatusAndCurrentPlanEndDateAfter("Active", TODAY));
+        assertEquals(expected, userRepository.findAll().stream()
+                .filter(user -> user.getCurrentPlanEndDate() != null && user.getCurrentPlanEndDate().isAfter(TODAY))
+                .count());
+    }
+}
@@ -0,0 +1,101 @@
+package com.gym.gymmanagementsystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendanceJournalTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 10, 6, 0);
+
+    @TempDir
+    Path directory;
+
+    private AttendanceJournal open(int recordsPerSegment) {
+        AttendanceJournal journal = new AttendanceJournal(true, directory.toString(),
+                recordsPerSegment * AttendanceJournal.RECORD_SIZE, false);
+        journal.open();
+        return journal;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void readsBackInOrderAcrossSegmentRollover() throws IOException {
+        AttendanceJournal journal = open(4);
+        for (int i = 0; i < 10; i++) {
+            journal.append(100 + i, START.plusSeconds(i).plusNanos(123_456_789L * i % 1_000_000_000L)); // Sub-millisecond precision kept
+        }
+        assertEquals(3, segmentCount());
+
+        List<AttendanceJournal.Entry> entries = journal.readPending(100);
+        assertEquals(10, entries.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, entries.get(i).sequence());
+            assertEquals(100 + i, entries.get(i).userId());
+            assertEquals(START.plusSeconds(i).plusNanos(123_456_789L * i % 1_000_000_000L), entries.get(i).timestamp());
+        }
+    }
+
+    @Test
+    void checkpointSurvivesReopenAndDeletesConsumedSegments() throws IOException {
+        AttendanceJournal journal = open(4);
+        for (int i = 0; i < 10; i++) {
+            journal.append(i, START.plusMinutes(i));
+        }
+        journal.markApplied(9);
+        assertEquals(1, segmentCount());
+        journal.close();
+
+        AttendanceJournal reopened = open(4);
+        assertEquals(1, reopened.pendingCount());
+        List<AttendanceJournal.Entry> pending = reopened.readPending(100);
+        assertEquals(1, pending.size());
+        assertEquals(10, pending.get(0).sequence());
+
+        assertEquals(11, reopened.append(42, START.plusHours(1)));
+        reopened.markApplied(11);
+        assertFalse(reopened.hasPending());
+        assertTrue(reopened.readPending(100).isEmpty());
+    }
+
+    @Test
+    void tornRecordAtTheTailIsDiscardedOnReopen() throws IOException {
+        AttendanceJournal journal = open(8);
+        for (int i = 0; i < 3; i++) {
+            journal.append(i, START.plusMinutes(i));
+        }
+        journal.close();
+
+        // Corrupt the last record's user ID so its CRC no longer matches
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 999), 2L * AttendanceJournal.RECORD_SIZE + 8);
+        }
+
+        AttendanceJournal reopened = open(8);
+        assertEquals(2, reopened.pendingCount());
+        assertEquals(3, reopened.append(7, START.plusHours(2))); // Overwrites the torn slot
+        assertEquals(7, reopened.readPending(100).get(2).userId());
+    }
+}
@@ -0,0 +1,45 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.AttendanceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttendancePresenceIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+
+    @Test
+    void lateUpdatesForThePreviousDayLeaveTodaysIndexAlone() {
+        AttendanceRepository attendanceRepository = mock(AttendanceRepository.class);
+        when(attendanceRepository.findPresenceByAttendanceDate(any())).thenReturn(List.of());
+        when(attendanceRepository.findByUserUserIdAndAttendanceDate(any(), any())).thenReturn(Optional.empty());
+        AttendancePresenceIndex index = new AttendancePresenceIndex();
+        ReflectionTestUtils.setField(index, "attendanceRepository", attendanceRepository);
+
+        index.rebuild(TODAY);
+        index.recordCheckIn(100001, TODAY, 1, TODAY.atTime(0, 5));
+        // Commits of yesterday's taps that land after midnight
+        index.recordCheckOut(100002, YESTERDAY, TODAY.atTime(0, 1));
+        index.recordCheckIn(100003, YESTERDAY, 2, YESTERDAY.atTime(23, 59));
+        index.rebuild(YESTERDAY);
+
+        assertEquals(1, index.countOpenSessions());
+        assertEquals(TODAY.atTime(0, 5), index.getSession(100001, TODAY).checkInTime());
+        assertNull(index.getSession(100003, TODAY));
+        assertNull(index.getSession(100003, YESTERDAY)); // Read from the table, which the mock leaves empty
+        verify(attendanceRepository, times(1)).findPresenceByAttendanceDate(any()); // Built once, never reloaded
+    }
+}
@@ -0,0 +1,116 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.AttendanceBatchResponseDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceTapDTO;
+import com.gym.gymmanagementsystem.dto.AttendanceTapResultDTO;
+import com.gym.gymmanagementsystem.repository.AttendanceJdbcRepository;
+import com.gym.gymmanagementsystem.repository.AttendanceRepository;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Buffered taps for a day that has already been rolled into 'daily_attendance' must not start a new hot session
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class AttendanceServiceBatchTest {
+
+    private static final LocalDate ARCHIVED_DAY = LocalDate.now().minusDays(5);
+    private static final LocalDateTime CHECK_IN = ARCHIVED_DAY.atTime(7, 0);
+    private static final LocalDateTime CHECK_OUT = ARCHIVED_DAY.atTime(8, 30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private AttendanceService attendanceService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        for (int userId = 100001; userId <= 100002; userId++) {
+            jdbcTemplate.update("INSERT INTO users (user_id, name, joining_date, membership_status, current_plan_end_date) " +
+                    "VALUES (?, ?, ?, 'Active', ?)", userId, "Member " + userId, ARCHIVED_DAY.minusMonths(1), LocalDate.now().plusMonths(1));
+        }
+        jdbcTemplate.update("INSERT INTO daily_attendance (user_id, attendance_date, check_in, check_out, time_spent_minutes) " +
+                "VALUES (100001, ?, ?, ?, 90)", ARCHIVED_DAY, CHECK_IN, CHECK_OUT);
+
+        AttendanceJdbcRepository attendanceJdbcRepository = new AttendanceJdbcRepository();
+        ReflectionTestUtils.setField(attendanceJdbcRepository, "jdbcTemplate", jdbcTemplate);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        AttendancePresenceIndex presenceIndex = new AttendancePresenceIndex();
+        ReflectionTestUtils.setField(presenceIndex, "attendanceRepository", attendanceRepository);
+        MemberEligibilityCache eligibilityCache = new MemberEligibilityCache(100);
+        ReflectionTestUtils.setField(eligibilityCache, "userRepository", userRepository);
+
+        attendanceService = new AttendanceService();
+        ReflectionTestUtils.setField(attendanceService, "attendanceRepository", attendanceRepository);
+        ReflectionTestUtils.setField(attendanceService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(attendanceService, "attendanceJdbcRepository", attendanceJdbcRepository);
+        ReflectionTestUtils.setField(attendanceService, "presenceIndex", presenceIndex);
+        ReflectionTestUtils.setField(attendanceService, "occupancyService", mock(OccupancyService.class));
+        ReflectionTestUtils.setField(attendanceService, "memberLocks", new MemberLockStripes(64));
+        ReflectionTestUtils.setField(attendanceService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(attendanceService, "writeBehindQueue", new AttendanceWriteBehindQueue()); // Disabled
+        ReflectionTestUtils.setField(attendanceService, "eligibilityCache", eligibilityCache);
+        ReflectionTestUtils.setField(attendanceService, "attendanceCalendar", new MemberAttendanceCalendar());
+        ReflectionTestUtils.setField(attendanceService, "cohortRetentionService", new CohortRetentionService());
+        ReflectionTestUtils.setField(attendanceService, "journal", new AttendanceJournal(false, "unused", 1024, false));
+    }
+
+    private static AttendanceTapDTO tap(Integer userId, LocalDateTime timestamp) {
+        AttendanceTapDTO tap = new AttendanceTapDTO();
+        tap.setUserId(userId);
+        tap.setTimestamp(timestamp);
+        return tap;
+    }
+
+    @Test
+    void tapsForAnArchivedSessionLeaveItUnchanged() {
+        AttendanceBatchResponseDTO response = attendanceService.recordAttendanceBatch(List.of(
+                tap(100001, ARCHIVED_DAY.atTime(18, 0)),
+                tap(100001, CHECK_IN), // Replayed tap that was archived already
+                tap(100002, ARCHIVED_DAY.atTime(18, 0)))); // No session that day; a late tap still checks in
+
+        assertEquals(List.of("ARCHIVED", "ALREADY_RECORDED", "CHECK_IN"),
+                response.getResults().stream().map(AttendanceTapResultDTO::getAction).toList());
+        assertEquals("Attendance for " + ARCHIVED_DAY + " has already been archived and can no longer be changed.",
+                response.getResults().get(0).getMessage());
+        assertEquals(2, response.getAcceptedCount());
+        assertEquals(1, response.getRejectedCount());
+
+        Map<String, Object> archived = jdbcTemplate.queryForMap(
+                "SELECT check_in, check_out, time_spent_minutes FROM daily_attendance WHERE user_id = 100001 AND attendance_date = ?",
+                ARCHIVED_DAY);
+        assertEquals(CHECK_IN, ((Timestamp) archived.get("CHECK_IN")).toLocalDateTime());
+        assertEquals(CHECK_OUT, ((Timestamp) archived.get("CHECK_OUT")).toLocalDateTime());
+        assertEquals(90L, ((Number) archived.get("TIME_SPENT_MINUTES")).longValue());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE user_id = 100001", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE user_id = 100002 AND attendance_date = ?", Integer.class, ARCHIVED_DAY));
+    }
+}
@@ -0,0 +1,208 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.model.Attendance;
+import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.repository.AttendanceRepository;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives recordOrUpdateAttendance from many threads against an in-memory stand-in for the
+ * 'attendance' table that enforces the (user_id, attendance_date) unique key.
+ */
+class AttendanceServiceConcurrencyTest {
+
+    private final Map<String, Attendance> rowsByUserAndDate = new ConcurrentHashMap<>();
+    private final Map<Integer, Attendance> rowsById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicInteger duplicateInserts = new AtomicInteger();
+    private volatile CountDownLatch insertEntered;
+    private volatile CountDownLatch insertReleased;
+
+    private AttendanceService attendanceService;
+    private MemberLockStripes memberLocks;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        AttendanceRepository attendanceRepository = mock(AttendanceRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+        when(attendanceRepository.findPresenceByAttendanceDate(any())).thenReturn(Collections.emptyList());
+        when(attendanceRepository.save(any(Attendance.class))).thenAnswer(invocation -> insert(invocation.getArgument(0)));
+        when(attendanceRepository.closeSession(anyInt(), any(), anyLong())).thenAnswer(invocation -> {
+            Attendance row = rowsById.get(invocation.<Integer>getArgument(0));
+            synchronized (row) {
+                if (row.getCheckOutTime() != null) {
+                    return 0;
+                }
+                row.setCheckOutTime(invocation.getArgument(1));
+                return 1;
+            }
+        });
+        when(userRepository.getReferenceById(any())).thenAnswer(invocation -> activeMember(invocation.getArgument(0)));
+        when(userRepository.findEligibilityByUserIdIn(any())).thenAnswer(invocation -> invocation.<Collection<Integer>>getArgument(0)
+                .stream().map(AttendanceServiceConcurrencyTest::eligibilityOf).toList());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+
+        AttendancePresenceIndex presenceIndex = new AttendancePresenceIndex();
+        ReflectionTestUtils.setField(presenceIndex, "attendanceRepository", attendanceRepository);
+        memberLocks = new MemberLockStripes(64);
+
+        attendanceService = new AttendanceService();
+        ReflectionTestUtils.setField(attendanceService, "attendanceRepository", attendanceRepository);
+        ReflectionTestUtils.setField(attendanceService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(attendanceService, "presenceIndex", presenceIndex);
+        ReflectionTestUtils.setField(attendanceService, "occupancyService", mock(OccupancyService.class));
+        ReflectionTestUtils.setField(attendanceService, "memberLocks", memberLocks);
+        ReflectionTestUtils.setField(attendanceService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(attendanceService, "writeBehindQueue", new AttendanceWriteBehindQueue()); // Disabled
+        MemberEligibilityCache eligibilityCache = new MemberEligibilityCache(100);
+        ReflectionTestUtils.setField(eligibilityCache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(attendanceService, "eligibilityCache", eligibilityCache);
+        ReflectionTestUtils.setField(attendanceService, "attendanceCalendar", new MemberAttendanceCalendar());
+        ReflectionTestUtils.setField(attendanceService, "cohortRetentionService", new CohortRetentionService());
+        ReflectionTestUtils.setField(attendanceService, "journal", new AttendanceJournal(false, "unused", 1024, false));
+    }
+
+    private Attendance insert(Attendance attendance) throws InterruptedException {
+        CountDownLatch entered = insertEntered;
+        if (entered != null && attendance.getUser().getUserId() == 1) {
+            entered.countDown();
+            insertReleased.await(5, TimeUnit.SECONDS);
+        }
+        Thread.sleep(1); // Widen the window between the presence check and the insert
+        String key = attendance.getUser().getUserId() + "|" + attendance.getAttendanceDate();
+        if (rowsByUserAndDate.putIfAbsent(key, attendance) != null) {
+            duplicateInserts.incrementAndGet();
+            throw new DataIntegrityViolationException("Duplicate entry '" + key + "' for key 'uk_attendance_user_date'");
+        }
+        attendance.setAttendanceId(nextId.getAndIncrement());
+        rowsById.put(attendance.getAttendanceId(), attendance);
+        return attendance;
+    }
+
+    private static User activeMember(Integer userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName("Member " + userId);
+        user.setMembershipStatus("Active");
+        user.setCurrentPlanEndDate(LocalDate.now().plusMonths(1));
+        return user;
+    }
+
+    private static UserRepository.EligibilityView eligibilityOf(Integer userId) {
+        User member = activeMember(userId);
+        UserRepository.EligibilityView view = mock(UserRepository.EligibilityView.class);
+        when(view.getUserId()).thenReturn(member.getUserId());
+        when(view.getName()).thenReturn(member.getName());
+        when(view.getMembershipStatus()).thenReturn(member.getMembershipStatus());
+        when(view.getCurrentPlanEndDate()).thenReturn(member.getCurrentPlanEndDate());
+        return view;
+    }
+
+    @Test
+    void manyThreadsTappingFewMembersCreateOneSessionEach() throws Exception {
+        int threads = 32;
+        int tapsPerThread = 50;
+        int members = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger checkIns = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < tapsPerThread; i++) {
+                    int userId = 1 + (thread + i) % members;
+                    try {
+                        attendanceService.recordOrUpdateAttendance(userId);
+                        checkIns.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Second taps within the minimum stay are rejected; that is expected here
+                        if (e.getMessage().contains("concurrently")) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(members, rowsByUserAndDate.size());
+        assertEquals(members, checkIns.get(), "exactly one tap per member may check in");
+        assertEquals(0, duplicateInserts.get(), "no insert should ever reach the unique key");
+        assertEquals(0, conflicts.get());
+    }
+
+    @Test
+    void differentMembersAreNotBlockedByEachOther() throws Exception {
+        assertNotEquals(memberLocks.stripeOf(1), memberLocks.stripeOf(2));
+        insertEntered = new CountDownLatch(1);
+        insertReleased = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> slowTap = executor.submit(() -> attendanceService.recordOrUpdateAttendance(1));
+        assertTrue(insertEntered.await(5, TimeUnit.SECONDS));
+
+        // Member 1 is mid-insert and holds its stripe; member 2 must still get through
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> attendanceService.recordOrUpdateAttendance(2));
+
+        insertReleased.countDown();
+        slowTap.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(2, rowsByUserAndDate.size());
+    }
+
+    @Test
+    void uniqueKeyViolationFromAnotherWriterIsReportedAsConcurrentChange() {
+        Attendance foreign = new Attendance();
+        foreign.setUser(activeMember(3));
+        foreign.setAttendanceDate(LocalDate.now());
+        rowsByUserAndDate.put("3|" + LocalDate.now(), foreign); // Written behind the presence index's back
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> attendanceService.recordOrUpdateAttendance(3));
+        assertEquals("Attendance record changed concurrently. Please try again.", e.getMessage());
+    }
+}
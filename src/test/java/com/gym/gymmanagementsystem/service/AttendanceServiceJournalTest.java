@@ -0,0 +1,73 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.AttendanceResponseDTO;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Taps taken while earlier taps are still waiting in the journal are journaled too, without touching the database
+class AttendanceServiceJournalTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    private AttendanceService attendanceService;
+    private AttendanceJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        List<UserRepository.EligibilityView> members = List.of(
+                eligibility(100001, "Active", LocalDate.now().plusMonths(1)),
+                eligibility(100002, "Expired", LocalDate.now().minusDays(1)));
+        when(userRepository.findEligibilityByUserIdIn(any())).thenReturn(members);
+        MemberEligibilityCache eligibilityCache = new MemberEligibilityCache(100);
+        ReflectionTestUtils.setField(eligibilityCache, "userRepository", userRepository);
+        eligibilityCache.getAll(List.of(100001, 100002)); // Seen before the database went away
+
+        journal = new AttendanceJournal(true, journalDirectory.toString(), 64 * AttendanceJournal.RECORD_SIZE, false);
+        journal.open();
+        journal.append(100003, LocalDate.now().atTime(6, 0)); // Not yet replayed
+
+        attendanceService = new AttendanceService();
+        ReflectionTestUtils.setField(attendanceService, "journal", journal);
+        ReflectionTestUtils.setField(attendanceService, "eligibilityCache", eligibilityCache);
+    }
+
+    private static UserRepository.EligibilityView eligibility(Integer userId, String status, LocalDate planEndDate) {
+        UserRepository.EligibilityView view = mock(UserRepository.EligibilityView.class);
+        when(view.getUserId()).thenReturn(userId);
+        when(view.getName()).thenReturn("Member " + userId);
+        when(view.getMembershipStatus()).thenReturn(status);
+        when(view.getCurrentPlanEndDate()).thenReturn(planEndDate);
+        return view;
+    }
+
+    @Test
+    void journaledTapsAreCheckedAgainstTheCachedEligibility() {
+        AttendanceResponseDTO active = attendanceService.recordOrUpdateAttendance(100001);
+        assertEquals("JOURNALED", active.getJournalStatus());
+        assertEquals("Member 100001", active.getUserName());
+
+        RuntimeException expired = assertThrows(RuntimeException.class, () -> attendanceService.recordOrUpdateAttendance(100002));
+        assertEquals("User's membership is not active. Status: Expired.", expired.getMessage());
+
+        assertEquals("UNVERIFIED", attendanceService.recordOrUpdateAttendance(100004).getJournalStatus());
+
+        List<AttendanceJournal.Entry> pending = journal.readPending(10);
+        assertEquals(List.of(100003, 100001, 100004), pending.stream().map(AttendanceJournal.Entry::userId).toList());
+        assertEquals(active.getCheckInTime(), pending.get(1).timestamp()); // Replayed with the time that was acknowledged
+    }
+}
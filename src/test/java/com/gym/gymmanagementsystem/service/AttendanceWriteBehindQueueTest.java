@@ -0,0 +1,216 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.AttendanceJdbcRepository;
+import com.gym.gymmanagementsystem.repository.AttendanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AttendanceWriteBehindQueueTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDateTime MORNING = TODAY.atTime(7, 0);
+
+    @TempDir
+    Path journalDirectory;
+
+    private final List<AttendanceJdbcRepository.SessionWrite> written = new ArrayList<>();
+    private AttendanceRepository attendanceRepository;
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+    private AttendancePresenceIndex presenceIndex;
+    private AttendanceWriteBehindQueue writeBehindQueue;
+    private BlockingQueue<AttendanceWriteBehindQueue.AttendanceWrite> queue;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        attendanceRepository = mock(AttendanceRepository.class);
+        attendanceJdbcRepository = mock(AttendanceJdbcRepository.class);
+        doAnswer(invocation -> {
+            List<AttendanceJdbcRepository.SessionWrite> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.getUserId() == 13)) {
+                throw new RuntimeException("Incorrect datetime value"); // A row the database will never accept
+            }
+            for (AttendanceJdbcRepository.SessionWrite row : rows) {
+                row.setAttendanceId(written.size() + 1);
+                written.add(row);
+            }
+            return null;
+        }).when(attendanceJdbcRepository).insertSessions(any());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        writeBehindQueue = new AttendanceWriteBehindQueue();
+        presenceIndex = new AttendancePresenceIndex();
+        ObjectProvider<AttendanceWriteBehindQueue> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(writeBehindQueue);
+        ReflectionTestUtils.setField(presenceIndex, "attendanceRepository", attendanceRepository);
+        ReflectionTestUtils.setField(presenceIndex, "writeBehindQueue", provider);
+
+        ReflectionTestUtils.setField(writeBehindQueue, "attendanceJdbcRepository", attendanceJdbcRepository);
+        ReflectionTestUtils.setField(writeBehindQueue, "presenceIndex", presenceIndex);
+        ReflectionTestUtils.setField(writeBehindQueue, "memberLocks", new MemberLockStripes(16));
+        ReflectionTestUtils.setField(writeBehindQueue, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(writeBehindQueue, "enabled", true);
+        ReflectionTestUtils.setField(writeBehindQueue, "offerTimeoutMillis", 10L);
+        ReflectionTestUtils.setField(writeBehindQueue, "retryDelayMillis", 1L);
+        ReflectionTestUtils.setField(writeBehindQueue, "maxRetries", 2);
+        ReflectionTestUtils.setField(writeBehindQueue, "journal", new AttendanceJournal(false, "unused", 1024, false));
+        // No writer thread: the test decides when queued taps are flushed
+        queue = new ArrayBlockingQueue<>(100);
+        ReflectionTestUtils.setField(writeBehindQueue, "queue", queue);
+        ReflectionTestUtils.setField(writeBehindQueue, "accepting", true);
+    }
+
+    private void tap(Integer userId, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+        writeBehindQueue.enqueue(new AttendanceWriteBehindQueue.AttendanceWrite(userId, TODAY, checkInTime, checkOutTime));
+        if (checkOutTime == null) {
+            presenceIndex.recordCheckIn(userId, TODAY, null, checkInTime);
+        } else {
+            presenceIndex.recordCheckOut(userId, TODAY, checkOutTime);
+        }
+    }
+
+    private void flushQueued() {
+        List<AttendanceWriteBehindQueue.AttendanceWrite> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        writeBehindQueue.flush(batch);
+    }
+
+    @Test
+    void rebuildKeepsTapsThatAreStillQueued() {
+        tap(1, MORNING, null);
+        tap(2, MORNING, null);
+        flushQueued();
+        tap(2, MORNING, MORNING.plusHours(1)); // Check-out of a flushed check-in, still queued
+        tap(3, MORNING.plusMinutes(5), null);  // Check-in still queued
+
+        AttendanceRepository.PresenceView member1 = presenceView(1, 1, MORNING, null);
+        AttendanceRepository.PresenceView member2 = presenceView(2, 2, MORNING, null);
+        when(attendanceRepository.findPresenceByAttendanceDate(TODAY)).thenReturn(List.of(member1, member2));
+        presenceIndex.rebuild(TODAY);
+
+        assertTrue(presenceIndex.getSession(1, TODAY).isOpen());
+        assertEquals(2, presenceIndex.getSession(2, TODAY).attendanceId());
+        assertEquals(MORNING.plusHours(1), presenceIndex.getSession(2, TODAY).checkOutTime());
+        assertNull(presenceIndex.getSession(3, TODAY).attendanceId());
+        assertTrue(presenceIndex.getSession(3, TODAY).isOpen());
+        assertEquals(2, presenceIndex.countOpenSessions());
+
+        flushQueued();
+        assertTrue(writeBehindQueue.pendingWrites(TODAY).isEmpty());
+        assertEquals(3, presenceIndex.getSession(3, TODAY).attendanceId());
+    }
+
+    @Test
+    void rejectedTapLeavesTheEarlierQueuedTapPending() {
+        ReflectionTestUtils.setField(writeBehindQueue, "queue", new ArrayBlockingQueue<>(1));
+        writeBehindQueue.enqueue(new AttendanceWriteBehindQueue.AttendanceWrite(1, TODAY, MORNING, null));
+        AttendanceWriteBehindQueue.AttendanceWrite checkOut =
+                new AttendanceWriteBehindQueue.AttendanceWrite(1, TODAY, MORNING, MORNING.plusHours(1));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> writeBehindQueue.enqueue(checkOut));
+        assertEquals("Attendance queue is full. Please try again.", e.getMessage());
+        assertEquals(List.of(new AttendanceWriteBehindQueue.AttendanceWrite(1, TODAY, MORNING, null)),
+                writeBehindQueue.pendingWrites(TODAY));
+    }
+
+    @Test
+    void rowThatKeepsFailingGoesToTheJournalWithoutHoldingUpTheRest() throws InterruptedException {
+        AttendanceJournal journal = new AttendanceJournal(true, journalDirectory.toString(), 64 * AttendanceJournal.RECORD_SIZE, false);
+        journal.open();
+        ReflectionTestUtils.setField(writeBehindQueue, "journal", journal);
+        tap(12, MORNING, null);
+        tap(13, MORNING.plusMinutes(1), null);
+        tap(14, MORNING.plusMinutes(2), null);
+
+        List<AttendanceWriteBehindQueue.AttendanceWrite> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        writeBehindQueue.flushWithRetry(batch);
+
+        assertEquals(List.of(12, 14), written.stream().map(AttendanceJdbcRepository.SessionWrite::getUserId).toList());
+        List<AttendanceJournal.Entry> journaled = journal.readPending(10);
+        assertEquals(1, journaled.size());
+        assertEquals(13, journaled.get(0).userId());
+        assertEquals(MORNING.plusMinutes(1), journaled.get(0).timestamp());
+        assertTrue(writeBehindQueue.pendingWrites(TODAY).isEmpty());
+        assertEquals(3, writeBehindQueue.getMetrics().getFailedFlushCount()); // The batch three times, never the healthy rows
+        assertEquals(1, writeBehindQueue.getMetrics().getJournaledCount());
+    }
+
+    @Test
+    void everyAcknowledgedTapIsWrittenWhenShutdownRacesTheProducers() throws Exception {
+        ReflectionTestUtils.setField(writeBehindQueue, "capacity", 100);
+        ReflectionTestUtils.setField(writeBehindQueue, "batchSize", 20);
+        ReflectionTestUtils.setField(writeBehindQueue, "offerTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(writeBehindQueue, "shutdownTimeoutMillis", 10_000L);
+        writeBehindQueue.start();
+
+        AtomicInteger nextUserId = new AtomicInteger(100);
+        AtomicInteger acknowledged = new AtomicInteger();
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(producers.submit(() -> {
+                while (true) {
+                    try {
+                        writeBehindQueue.enqueue(new AttendanceWriteBehindQueue.AttendanceWrite(
+                                nextUserId.incrementAndGet(), TODAY, MORNING, null));
+                        acknowledged.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        return null; // Shutting down
+                    }
+                }
+            }));
+        }
+        Thread.sleep(50);
+        writeBehindQueue.drainOnShutdown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        producers.shutdown();
+
+        assertTrue(acknowledged.get() > 0);
+        assertEquals(acknowledged.get(), written.size());
+    }
+
+    private static AttendanceRepository.PresenceView presenceView(Integer userId, Integer attendanceId,
+                                                                  LocalDateTime checkIn, LocalDateTime checkOut) {
+        AttendanceRepository.PresenceView view = mock(AttendanceRepository.PresenceView.class);
+        when(view.getUserId()).thenReturn(userId);
+        when(view.getAttendanceId()).thenReturn(attendanceId);
+        when(view.getCheckInTime()).thenReturn(checkIn);
+        when(view.getCheckOutTime()).thenReturn(checkOut);
+        return view;
+    }
+}
@@ -0,0 +1,77 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.CohortRetentionRowDTO;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CohortRetentionServiceTest {
+
+    @Test
+    void countsCohortMembersActiveInEachFollowingMonth() {
+        CohortRetentionService service = new CohortRetentionService();
+        service.recordVisit(100001, LocalDate.of(2025, 1, 10));
+        service.recordVisit(100001, LocalDate.of(2025, 1, 11));
+        service.recordVisit(100002, LocalDate.of(2025, 1, 31));
+        service.recordVisit(100001, LocalDate.of(2025, 2, 3));
+        service.recordVisit(100003, LocalDate.of(2025, 2, 3)); // Not in the cohort
+        service.recordVisit(100002, LocalDate.of(2025, 3, 1));
+
+        SortedMap<YearMonth, RoaringBitmap> cohorts = new TreeMap<>();
+        cohorts.put(YearMonth.of(2025, 1), RoaringBitmap.bitmapOf(100001, 100002, 100004));
+        List<CohortRetentionRowDTO> rows = service.computeRetention(cohorts, 6, YearMonth.of(2025, 3));
+
+        assertEquals(1, rows.size());
+        assertEquals(3, rows.get(0).getCohortSize());
+        assertArrayEquals(new int[] {2, 1, 1}, rows.get(0).getRetainedCounts()); // Offsets after March are in the future
+
+        // A late visit into a closed (cached) month is picked up
+        service.recordVisit(100004, LocalDate.of(2025, 2, 20));
+        assertArrayEquals(new int[] {2, 2, 1}, service.computeRetention(cohorts, 6, YearMonth.of(2025, 3)).get(0).getRetainedCounts());
+    }
+
+    /**
+     * Three years of synthetic visits for 500 members: each joins in a random month, visits two to
+     * four times a week, and churns after a random number of months.
+     */
+    @Test
+    void retentionMatrixOverSeveralYearsOfSyntheticData() {
+        CohortRetentionService service = new CohortRetentionService();
+        Random random = new Random(7);
+        YearMonth first = YearMonth.of(2022, 1);
+        int monthsCovered = 36;
+        SortedMap<YearMonth, RoaringBitmap> cohorts = new TreeMap<>();
+
+        for (int member = 0; member < 500; member++) {
+            int userId = 100_000 + member;
+            YearMonth joined = first.plusMonths(random.nextInt(monthsCovered));
+            cohorts.computeIfAbsent(joined, m -> new RoaringBitmap()).add(userId);
+            LocalDate churn = joined.atDay(1).plusMonths(1 + random.nextInt(18));
+            int perWeek = 2 + random.nextInt(3);
+            for (LocalDate week = joined.atDay(1); week.isBefore(churn) && week.isBefore(first.plusMonths(monthsCovered).atDay(1)); week = week.plusWeeks(1)) {
+                for (int v = 0; v < perWeek; v++) {
+                    service.recordVisit(userId, week.plusDays(random.nextInt(7)));
+                }
+            }
+        }
+
+        YearMonth current = first.plusMonths(monthsCovered);
+        List<CohortRetentionRowDTO> rows = service.computeRetention(cohorts, 12, current);
+        List<CohortRetentionRowDTO> cached = service.computeRetention(cohorts, 12, current);
+        assertEquals(cohorts.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            CohortRetentionRowDTO row = rows.get(i);
+            assertEquals(row.getCohortSize(), row.getRetainedCounts()[0], "everyone visits in their joining month");
+            assertArrayEquals(row.getRetainedCounts(), cached.get(i).getRetainedCounts(), "cached closed months agree");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.dto.KeysetPageDTO;
+import com.gym.gymmanagementsystem.dto.PaymentResponseDTO;
+import com.gym.gymmanagementsystem.dto.UserResponseDTO;
+import com.gym.gymmanagementsystem.model.Attendance;
+import com.gym.gymmanagementsystem.model.MembershipPlan;
+import com.gym.gymmanagementsystem.model.Payment;
+import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.repository.MembershipPlanRepository;
+import com.gym.gymmanagementsystem.repository.PaymentRepository;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Every list a controller returns, with members that have plenty of attendance and payments behind them
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class ListQueryCountTest {
+
+    private static final int MEMBERS = 30;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private MembershipPlanRepository planRepository;
+
+    private Statistics statistics;
+    private DashboardService dashboardService;
+    private UserService userService;
+    private PaymentService paymentService;
+    private MemberSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        MembershipPlan monthly = new MembershipPlan();
+        monthly.setPlanName("Monthly");
+        monthly.setPrice(1000.0);
+        monthly.setDurationMonths(1);
+        Integer planId = planRepository.save(monthly).getPlanId();
+
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= MEMBERS; i++) {
+            User user = new User();
+            user.setUserId(100000 + i);
+            user.setName("Member " + i);
+            user.setContactNumber(String.valueOf(9_000_000_000L + i));
+            user.setJoiningDate(today.minusDays(60));
+            user.setMembershipStatus(i % 3 == 0 ? "Expired" : "Active");
+            user.setCurrentPlanId(planId);
+            user.setCurrentPlanStartDate(today.minusDays(20));
+            user.setCurrentPlanEndDate(i % 3 == 0 ? today.minusDays(1) : today.plusDays(i));
+            entityManager.persist(user);
+            for (int d = 1; d <= 10; d++) {
+                Attendance attendance = new Attendance();
+                attendance.setUser(user);
+                attendance.setAttendanceDate(today.minusDays(d));
+                attendance.setCheckInTime(today.minusDays(d).atTime(7, 0));
+                attendance.setCheckOutTime(today.minusDays(d).atTime(8, 0));
+                attendance.setTimeSpentMinutes(60L);
+                entityManager.persist(attendance);
+            }
+            for (int m = 0; m < 3; m++) {
+                Payment payment = new Payment();
+                payment.setUser(user);
+                payment.setAmount(1000.0);
+                payment.setDueAmount(0.0);
+                payment.setPaymentDate(today.minusMonths(m));
+                payment.setPaymentMethod("Cash");
+                payment.setMembershipPlanId(planId);
+                entityManager.persist(payment);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        MembershipPlanCatalog catalog = new MembershipPlanCatalog();
+        ReflectionTestUtils.setField(catalog, "planRepository", planRepository);
+        catalog.reload();
+        searchIndex = new MemberSearchIndex();
+        ReflectionTestUtils.setField(searchIndex, "userRepository", userRepository);
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "planCatalog", catalog);
+        dashboardService = new DashboardService();
+        ReflectionTestUtils.setField(dashboardService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(dashboardService, "planCatalog", catalog);
+        ReflectionTestUtils.setField(dashboardService, "searchIndex", searchIndex);
+        paymentService = new PaymentService();
+        ReflectionTestUtils.setField(paymentService, "paymentRepository", paymentRepository);
+        ReflectionTestUtils.setField(paymentService, "planCatalog", catalog);
+        statistics.clear();
+    }
+
+    // Runs one listing in a fresh persistence context and returns how many statements it took
+    private <T> long statementsFor(Supplier<T> listing, int expectedRows) {
+        entityManager.clear();
+        statistics.clear();
+        T result = listing.get();
+        int rows = result instanceof Page<?> page ? page.getContent().size()
+                : result instanceof KeysetPageDTO<?> slice ? slice.getContent().size()
+                : ((List<?>) result).size();
+        assertEquals(expectedRows, rows);
+        assertEquals(0, statistics.getCollectionFetchCount(), "a listing initialized a collection");
+        assertEquals(0, statistics.getCollectionLoadCount(), "a listing loaded a collection");
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void memberListsAreBuiltFromProjectionsAlone() {
+        assertEquals(2, statementsFor(() -> userService.getAllUsers(PageRequest.of(0, 20)), 20));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statementsFor(() -> dashboardService.filterUsersByStatus("Expired"), MEMBERS / 3));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statementsFor(() -> dashboardService.searchUsers("Member 1"), 11));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statementsFor(() -> dashboardService.getMembershipsExpiringSoon(7), 5));
+
+        searchIndex.rebuild();
+        List<UserResponseDTO> ranked = dashboardService.searchUsers("Member 1");
+        assertEquals(1, statementsFor(() -> dashboardService.searchUsers("Member 1"), 11));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(100001, ranked.get(0).getUserId()); // Search index ranking kept
+    }
+
+    @Test
+    void paymentListsFetchTheirMemberInTheSameStatement() {
+        assertEquals(2, statementsFor(() -> paymentService.getAllPayments(PageRequest.of(0, 25)), 25));
+        assertEquals(1, statementsFor(() -> paymentService.getPaymentSlice(false, null, 25), 25));
+        assertEquals(1, statementsFor(() -> paymentService.getPaymentsByUserId(100001), 3));
+    }
+
+    @Test
+    void entitiesCompareByIdWithoutTouchingAssociations() {
+        Payment payment = paymentRepository.findByUserUserId(100002).get(0);
+        entityManager.clear();
+        Payment detached = entityManager.find(Payment.class, payment.getPaymentId());
+        statistics.clear();
+
+        // Neither logging nor hashing the payment initializes its member
+        assertFalse(detached.toString().contains("Member"));
+        Set<Payment> payments = new HashSet<>(List.of(detached));
+        assertTrue(payments.contains(payment));
+        assertFalse(Hibernate.isInitialized(detached.getUser()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // An unsaved entity is only ever equal to itself, and keeps its hash once saved
+        User first = new User();
+        User second = new User();
+        assertNotEquals(first, second);
+        Set<User> users = new HashSet<>(Set.of(first));
+        first.setUserId(200001);
+        first.setName("New");
+        first.setJoiningDate(LocalDate.now());
+        entityManager.persist(first);
+        assertTrue(users.contains(first));
+        assertEquals(entityManager.find(User.class, 200001), first);
+    }
+}
@@ -0,0 +1,56 @@
+package com.gym.gymmanagementsystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemberAttendanceCalendarTest {
+
+    private final MemberAttendanceCalendar calendar = new MemberAttendanceCalendar();
+
+    private void attend(int userId, LocalDate from, int days) {
+        for (int i = 0; i < days; i++) {
+            calendar.markPresent(userId, from.plusDays(i));
+        }
+    }
+
+    @Test
+    void calendarListsDaysInOrderIncludingDayOfYearBoundaries() {
+        calendar.markPresent(1, LocalDate.of(2024, 12, 31)); // Day 366, the last bit of a leap year
+        calendar.markPresent(1, LocalDate.of(2024, 3, 5)); // Day 65, first bit of the second word
+        calendar.markPresent(1, LocalDate.of(2024, 1, 1));
+        calendar.markPresent(1, LocalDate.of(2024, 1, 1));
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 5), LocalDate.of(2024, 12, 31)),
+                calendar.getDatesPresent(1, 2024));
+        assertEquals(List.of(), calendar.getDatesPresent(2, 2024));
+    }
+
+    @Test
+    void countsDaysInRangesSpanningWordsAndYears() {
+        attend(7, LocalDate.of(2023, 12, 20), 30); // Dec 20, 2023 - Jan 18, 2024
+        assertEquals(30, calendar.countDaysPresent(7, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)));
+        assertEquals(12, calendar.countDaysPresent(7, LocalDate.of(2023, 12, 20), LocalDate.of(2023, 12, 31)));
+        assertEquals(5, calendar.countDaysPresent(7, LocalDate.of(2024, 1, 14), LocalDate.of(2024, 2, 1)));
+
+        calendar.markAbsent(7, LocalDate.of(2024, 1, 1));
+        assertEquals(29, calendar.countDaysPresent(7, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void streaksCarryAcrossNewYearAndWordBoundaries() {
+        attend(3, LocalDate.of(2023, 2, 1), 10);
+        attend(3, LocalDate.of(2023, 12, 25), 80); // Dec 25, 2023 - Mar 13, 2024 crosses two words
+        attend(3, LocalDate.of(2024, 6, 1), 3);
+
+        assertEquals(80, calendar.getLongestStreak(3, 2023, 2024));
+        assertEquals(3, calendar.getCurrentStreak(3, LocalDate.of(2024, 6, 3)));
+        assertEquals(3, calendar.getCurrentStreak(3, LocalDate.of(2024, 6, 4))); // Not in yet today
+        assertEquals(0, calendar.getCurrentStreak(3, LocalDate.of(2024, 6, 5)));
+        assertEquals(80, calendar.getCurrentStreak(3, LocalDate.of(2024, 3, 13)));
+        assertEquals(8, calendar.getCurrentStreak(3, LocalDate.of(2024, 1, 1)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.gym.gymmanagementsystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs outside a test transaction: blocks are reserved in transactions of their own, which must see the seeded rows
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MemberIdAllocatorTest {
+
+    private static final int ID_SPACE = MemberIdAllocator.MAX_ID - MemberIdAllocator.MIN_ID + 1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM id_allocation");
+    }
+
+    // Registers a random fraction of the whole ID space and returns the IDs used
+    private Set<Integer> seed(double occupancy) {
+        List<Integer> ids = new ArrayList<>(ID_SPACE);
+        for (int id = MemberIdAllocator.MIN_ID; id <= MemberIdAllocator.MAX_ID; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, new Random(42));
+        List<Integer> used = ids.subList(0, (int) (ID_SPACE * occupancy));
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (Integer id : used) {
+            rows.add(new Object[] {id, "Member " + id, LocalDate.of(2025, 1, 1)});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO users (user_id, name, joining_date) VALUES (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, name, joining_date) VALUES (?, ?, ?)", rows);
+        return new HashSet<>(used);
+    }
+
+    @Test
+    void instancesSharingTheDatabaseNeverHandOutTheSameId() throws Exception {
+        Set<Integer> existing = seed(0.5);
+        MemberIdAllocator first = new MemberIdAllocator(jdbcTemplate, transactionManager, 50);
+        MemberIdAllocator second = new MemberIdAllocator(jdbcTemplate, transactionManager, 50);
+        second.markTaken(100000); // Registered by hand elsewhere on this instance
+
+        Set<Integer> handedOut = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            MemberIdAllocator allocator = t % 2 == 0 ? first : second;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    assertTrue(handedOut.add(allocator.nextId()), "an ID was handed out twice");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(4000, handedOut.size());
+        handedOut.forEach(id -> assertFalse(existing.contains(id), "ID " + id + " was already registered"));
+        assertTrue(handedOut.stream().allMatch(id -> id >= MemberIdAllocator.MIN_ID && id <= MemberIdAllocator.MAX_ID));
+    }
+}
@@ -0,0 +1,159 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.gym.gymmanagementsystem.dto.MemberImportErrorDTO;
+import com.gym.gymmanagementsystem.dto.MemberImportResultDTO;
+import com.gym.gymmanagementsystem.model.MembershipPlan;
+import com.gym.gymmanagementsystem.model.User;
+import com.gym.gymmanagementsystem.repository.MembershipPlanRepository;
+import com.gym.gymmanagementsystem.repository.UserJdbcRepository;
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs outside a test transaction: every batch commits in a transaction of its own
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MemberImportServiceTest {
+
+    private static final String HEADER = "name,age,gender,contactNumber,joiningDate,selectedPlanId,userId\n";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MembershipPlanRepository planRepository;
+
+    private MemberImportService importService;
+    private MemberSearchIndex searchIndex;
+    private Integer monthlyPlanId;
+
+    @BeforeEach
+    void setUp() {
+        MembershipPlan monthly = new MembershipPlan();
+        monthly.setPlanName("Monthly");
+        monthly.setPrice(1000.0);
+        monthly.setDurationMonths(1);
+        monthlyPlanId = planRepository.save(monthly).getPlanId();
+        MembershipPlanCatalog catalog = new MembershipPlanCatalog();
+        ReflectionTestUtils.setField(catalog, "planRepository", planRepository);
+
+        UserJdbcRepository userJdbcRepository = new UserJdbcRepository();
+        ReflectionTestUtils.setField(userJdbcRepository, "jdbcTemplate", jdbcTemplate);
+        searchIndex = new MemberSearchIndex();
+
+        importService = new MemberImportService();
+        ReflectionTestUtils.setField(importService, "userJdbcRepository", userJdbcRepository);
+        ReflectionTestUtils.setField(importService, "planCatalog", catalog);
+        ReflectionTestUtils.setField(importService, "memberIdAllocator", new MemberIdAllocator(jdbcTemplate, transactionManager, 100));
+        ReflectionTestUtils.setField(importService, "eligibilityCache", new MemberEligibilityCache(1000));
+        ReflectionTestUtils.setField(importService, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(importService, "objectMapper", JsonMapper.builder().findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build());
+        ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(importService, "batchSize", 3);
+        ReflectionTestUtils.setField(importService, "maxReportedErrors", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM id_allocation");
+        jdbcTemplate.update("DELETE FROM membership_plans");
+    }
+
+    private MemberImportResultDTO importText(String text, String format) throws IOException {
+        return importService.importMembers(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    @Test
+    void importsValidCsvRowsAndReportsTheRestByLine() throws IOException {
+        jdbcTemplate.update("INSERT INTO users (user_id, name, joining_date) VALUES (?, ?, ?)", 200001, "Existing", LocalDate.now());
+        LocalDate joined = LocalDate.now().minusDays(10);
+        String csv = "\uFEFF" + HEADER
+                + "\"Kumar, Ravi\",30,Male,9876500001," + joined + "," + monthlyPlanId + ",\n"   // line 2
+                + "\"Sita \"\"S\"\"\nDevi\",25,Female,9876500002," + joined + ",,300001\n"      // lines 3-4
+                + "\n"                                                                             // line 5
+                + "Arun,abc,Male,9876500003," + joined + ",,\n"                                    // line 6
+                + "Priya,28,Female,12345," + joined + ",,\n"                                       // line 7
+                + "Kiran,40,Male,9876500005," + joined + ",999,\n"                                 // line 8
+                + "Mahesh,35,Male,9876500006," + joined + ",,300001\n"                             // line 9
+                + "Divya,22,Female,9876500007," + joined + ",,200001\n"                            // line 10
+                + "Suresh,50,Male,9876500008\n"                                                    // line 11
+                + "Anitha,31,Female,9876500009," + joined.minusYears(1) + "," + monthlyPlanId + ",\r\n"; // line 12
+
+        MemberImportResultDTO result = importText(csv, "csv");
+
+        assertEquals(9, result.getTotalRows());
+        assertEquals(3, result.getImportedCount());
+        assertEquals(6, result.getFailedCount());
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L, 11L),
+                result.getErrors().stream().map(MemberImportErrorDTO::getLineNumber).toList());
+        assertEquals("Invalid value for 'age': abc", result.getErrors().get(0).getMessage());
+        assertEquals("Contact number must be 10 digits", result.getErrors().get(1).getMessage());
+        assertEquals("Membership Plan not found with id: 999", result.getErrors().get(2).getMessage());
+        assertEquals("User ID 300001 appears more than once in the file.", result.getErrors().get(3).getMessage());
+        assertEquals("User ID 200001 already exists.", result.getErrors().get(4).getMessage());
+        assertEquals("Expected 7 columns but found 4.", result.getErrors().get(5).getMessage());
+
+        User ravi = userRepository.findAll().stream().filter(user -> user.getName().equals("Kumar, Ravi")).findFirst().orElseThrow();
+        assertEquals("Active", ravi.getMembershipStatus());
+        assertEquals(joined.plusMonths(1), ravi.getCurrentPlanEndDate());
+        assertTrue(ravi.getUserId() >= MemberIdAllocator.MIN_ID && ravi.getUserId() <= MemberIdAllocator.MAX_ID);
+        User sita = userRepository.findById(300001).orElseThrow();
+        assertEquals("Sita \"S\"\nDevi", sita.getName());
+        assertEquals("Inactive", sita.getMembershipStatus());
+        User anitha = userRepository.findAll().stream().filter(user -> user.getName().equals("Anitha")).findFirst().orElseThrow();
+        assertEquals("Expired", anitha.getMembershipStatus());
+        assertEquals(List.of(ravi.getUserId()), searchIndex.search("ravi"));
+    }
+
+    @Test
+    void importsNdjsonRows() throws IOException {
+        String ndjson = "{\"name\":\"Ravi\",\"age\":30,\"gender\":\"Male\",\"contactNumber\":\"9876500001\",\"joiningDate\":\"2025-01-05\"}\n"
+                + "{\"name\":\"Sita\",\"age\":25\n"
+                + "\n"
+                + "{\"name\":\"\",\"age\":25,\"gender\":\"Female\",\"contactNumber\":\"9876500002\",\"joiningDate\":\"2025-01-05\"}\n";
+
+        MemberImportResultDTO result = importText(ndjson, "ndjson");
+
+        assertEquals(3, result.getTotalRows());
+        assertEquals(1, result.getImportedCount());
+        assertEquals(List.of(2L, 4L), result.getErrors().stream().map(MemberImportErrorDTO::getLineNumber).toList());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed row"));
+        assertEquals("Name is required", result.getErrors().get(1).getMessage());
+        assertEquals(1, userRepository.count());
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> importText(ndjson, "xlsx"));
+        assertEquals("Unsupported import format: xlsx. Use 'csv' or 'ndjson'.", e.getMessage());
+        assertEquals(1, userRepository.count());
+    }
+}
@@ -0,0 +1,71 @@
+package com.gym.gymmanagementsystem.service;
+
+import com.gym.gymmanagementsystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MemberSearchIndexTest {
+
+    private MemberSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllSearchFields()).thenReturn(List.of(
+                view(100001, "Ravi Kumar", "9876500001"),
+                view(100002, "Kumar Swamy", "9123400002"),
+                view(100003, "Aravind", "9876512345"),
+                view(123456, "Sita Devi", null)));
+        index = new MemberSearchIndex();
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        assertFalse(index.isReady());
+        index.rebuild();
+        assertTrue(index.isReady());
+    }
+
+    private static UserRepository.SearchFieldsView view(Integer userId, String name, String contactNumber) {
+        return new UserRepository.SearchFieldsView() {
+            public Integer getUserId() { return userId; }
+            public String getName() { return name; }
+            public String getContactNumber() { return contactNumber; }
+        };
+    }
+
+    @Test
+    void matchesSubstringsOfEveryFieldRankedByPrefix() {
+        // Name prefix, then word prefix, then anywhere in the name
+        assertEquals(List.of(100002, 100001), index.search("KUMAR"));
+        assertEquals(List.of(100001, 100003), index.search("rav"));
+        assertEquals(List.of(123456), index.search("123456"));
+        assertEquals(List.of(123456, 100003), index.search("12345")); // ID prefix before a match inside a contact number
+        assertEquals(List.of(100003, 100001), index.search("98765")); // Equal rank: by name
+        assertEquals(List.of(100003, 100002, 100001), index.search("1000"));
+        assertEquals(4, index.search("a").size()); // Short queries scan every member
+        assertTrue(index.search("xyz").isEmpty());
+        assertTrue(index.search("umar9").isEmpty()); // Trigrams from different fields don't make a match
+        assertEquals(1, index.search("kumar", 1).size());
+    }
+
+    @Test
+    void followsAddsRenamesAndDeletes() {
+        index.put(100004, "Ravindra", "9000000004");
+        assertEquals(List.of(100001, 100004, 100003), index.search("rav")); // Equal rank: by name
+
+        index.put(100001, "Raju", "9876500001");
+        assertEquals(List.of(100004, 100003), index.search("rav"));
+        assertEquals(List.of(100001), index.search("raju"));
+
+        index.remove(100004);
+        assertEquals(List.of(100003), index.search("rav"));
+        assertEquals("Raju", index.suggest("raj", 5).get(0).getName());
+    }
+}
@@ -0,0 +1,56 @@
+package com.gym.gymmanagementsystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WeeklyOccupancyGridTest {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Test
+    void sessionCountsInEveryBucketItTouches() {
+        WeeklyOccupancyGrid grid = new WeeklyOccupancyGrid();
+        // Tuesday 06:50 - 08:05
+        grid.addInterval(MINUTES_PER_DAY + 6 * 60 + 50, MINUTES_PER_DAY + 8 * 60 + 5);
+        grid.sweep();
+
+        int[] hours = new int[24];
+        grid.addHoursOfDay(1, hours);
+        int[] expectedHours = new int[24];
+        expectedHours[6] = 1;
+        expectedHours[7] = 1;
+        expectedHours[8] = 1;
+        assertArrayEquals(expectedHours, hours);
+
+        int[] quarters = new int[96];
+        grid.addQuartersOfDay(1, quarters);
+        for (int q = 0; q < 96; q++) {
+            assertEquals(q >= 27 && q <= 32 ? 1 : 0, quarters[q], "quarter " + q);
+        }
+
+        int[] monday = new int[24];
+        grid.addHoursOfDay(0, monday);
+        assertArrayEquals(new int[24], monday);
+    }
+
+    @Test
+    void sessionPastMidnightSpillsIntoNextDayAndIsClippedAtWeekEnd() {
+        WeeklyOccupancyGrid grid = new WeeklyOccupancyGrid();
+        grid.addInterval(MINUTES_PER_DAY - 30, MINUTES_PER_DAY + 30);           // Monday 23:30 - Tuesday 00:30
+        grid.addInterval(WeeklyOccupancyGrid.MINUTES_PER_WEEK - 10, WeeklyOccupancyGrid.MINUTES_PER_WEEK + 90);
+        grid.sweep();
+
+        int[] monday = new int[24];
+        int[] tuesday = new int[24];
+        int[] sunday = new int[24];
+        grid.addHoursOfDay(0, monday);
+        grid.addHoursOfDay(1, tuesday);
+        grid.addHoursOfDay(6, sunday);
+        assertEquals(1, monday[23]);
+        assertEquals(1, tuesday[0]);
+        assertEquals(0, tuesday[1]);
+        assertEquals(1, sunday[23]);
+    }
+}